@@ -0,0 +1,17 @@
+package com.englishtown.promises;
+
+import java.util.function.Consumer;
+
+/**
+ * Resolver for promises whose source can stop work when the promise is cancelled
+ */
+public interface CancellablePromiseResolver<T> {
+
+    /**
+     * @param resolve  resolves the promise
+     * @param reject   rejects the promise
+     * @param onCancel registers a hook run if the promise is cancelled while still pending
+     */
+    void resolve(Consumer<T> resolve, Consumer<Throwable> reject, Consumer<Runnable> onCancel);
+
+}
@@ -7,4 +7,39 @@ public interface Environment {
 
     Scheduler getScheduler();
 
+    /**
+     * Opt-in eager mode: when then() is called on an already settled promise, run the callback
+     * synchronously instead of scheduling it, up to this many nested eager callbacks per thread.
+     * Deeper callbacks go through the scheduler, which also bounds stack depth.
+     * <p>
+     * Note that eager callbacks run before then() returns, which Promises/A+ does not allow.
+     *
+     * @return max eager callback depth, 0 to always schedule callbacks
+     */
+    default int getMaxEagerDepth() {
+        return 0;
+    }
+
+    /**
+     * Check if a thenable that is not a when.java promise can be trusted.  A trusted thenable is
+     * assimilated by calling its then() right away instead of from a scheduled task, and if it has
+     * already settled its result is used directly.
+     * <p>
+     * Only trust thenables whose then() never blocks and calls each callback at most once.
+     *
+     * @param x a thenable that is not a when.java promise
+     * @return true if x can be trusted
+     */
+    default boolean isTrusted(Thenable<?> x) {
+        return false;
+    }
+
+    /**
+     * @return timer used by {@link When#delay} and {@link When#timeout}, or null to use the shared
+     * default timer
+     */
+    default Timer getTimer() {
+        return null;
+    }
+
 }
@@ -0,0 +1,18 @@
+package com.englishtown.promises;
+
+/**
+ * Scheduler lanes for promise continuations, highest priority first
+ */
+public enum Priority {
+    HIGH,
+    NORMAL,
+    BACKGROUND;
+
+    /**
+     * @param other priority to compare with
+     * @return true if this priority should run before other
+     */
+    public boolean isHigherThan(Priority other) {
+        return this.ordinal() < other.ordinal();
+    }
+}
@@ -1,5 +1,6 @@
 package com.englishtown.promises;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -19,6 +20,21 @@ public interface Promise<T> extends Thenable<T> {
 
     State<T> inspect();
 
+    /**
+     * Returns a promise for the same outcome whose continuations, and those of every promise
+     * chained from it, run in the given scheduler lane.  The default implementation has no
+     * lanes to choose from and returns this promise.
+     *
+     * @param priority scheduler lane for continuations
+     * @return a promise tagged with the priority
+     */
+    default Promise<T> withPriority(Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("priority cannot be null");
+        }
+        return this;
+    }
+
     /**
      * Handle the ultimate fulfillment value or rejection reason, and assume
      * responsibility for all errors.  If an error propagates out of result
@@ -130,4 +146,44 @@ public interface Promise<T> extends Thenable<T> {
 
     <U, V> Promise<V> fold(BiFunction<U, T, ? extends Thenable<V>> fn, Thenable<U> arg);
 
+    /**
+     * Return a future that completes with this promise's value, or exceptionally with its
+     * rejection reason.  The future is completed directly when this promise settles, or right
+     * away if it already has.  Completing the future does not affect this promise, cancelling it
+     * gives up on this promise as a cancelled consumer does, see {@link #cancel()}.
+     * <p>
+     * The default implementation completes the future from a {@link #then} callback and ignores
+     * cancellation.
+     *
+     * @return a new future
+     */
+    default CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        this.<T>then(x -> {
+            future.complete(x);
+            return null;
+        }, t -> {
+            future.completeExceptionally(t);
+            return null;
+        });
+        return future;
+    }
+
+    /**
+     * Reject this promise with a {@link java.util.concurrent.CancellationException} if it is still
+     * pending.  The cancellation is passed upstream to the promises this one is waiting on, and
+     * cancels them as well unless something else is waiting on them.  It stops at sources that did
+     * not opt in, such as plain deferreds.  Sources created with a {@link CancellablePromiseResolver}
+     * are told through their cancel hook so they can stop work.
+     * <p>
+     * Cancellation is best effort: a source may already be resolving this promise when it is
+     * cancelled, in which case the call returns false and the result stands.  The default
+     * implementation cannot cancel and returns false.
+     *
+     * @return true if this call cancelled the promise
+     */
+    default boolean cancel() {
+        return false;
+    }
+
 }
@@ -7,6 +7,28 @@ public interface Scheduler {
 
     void enqueue(Runnable task);
 
+    /**
+     * Enqueue a task in a priority lane.  Schedulers without lanes run every task in the normal lane.
+     *
+     * @param task     task to be run
+     * @param priority lane to run the task in
+     */
+    default void enqueue(Runnable task, Priority priority) {
+        enqueue(task);
+    }
+
     void afterQueue(Runnable task);
 
+    /**
+     * Returns a scheduler that runs the tasks enqueued on it one at a time and in order.  The same
+     * key always returns the same scheduler.  The default returns this scheduler, which is correct
+     * for schedulers that only ever run a single drainer.
+     *
+     * @param key key such as an entity id
+     * @return a serial scheduler for the key
+     */
+    default Scheduler forKey(Object key) {
+        return this;
+    }
+
 }
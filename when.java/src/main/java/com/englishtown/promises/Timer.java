@@ -0,0 +1,35 @@
+package com.englishtown.promises;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer to run tasks after a delay, used by delay() and timeout()
+ */
+public interface Timer {
+
+    /**
+     * Run a task once after a delay.  Tasks run on the timer's thread and should only hand work off,
+     * e.g. by resolving a promise.
+     *
+     * @param task  task to be run
+     * @param delay delay before the task runs
+     * @param unit  unit of delay
+     * @return handle to cancel the task
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Handle for a scheduled task
+     */
+    interface Timeout {
+
+        /**
+         * Cancel the task if it has not run yet
+         *
+         * @return true if cancelled, false if the task already ran or was cancelled
+         */
+        boolean cancel();
+
+    }
+
+}
@@ -1,15 +1,22 @@
 package com.englishtown.promises;
 
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Promises/A+ and when implementation
  * <p>
  * This is a port of the when.js version 3.2.3 library written by Brian Cavalier and John Hann
  * when is part of the cujoJS family of libraries (http://cujojs.com/)
+ * <p>
+ * Get an instance from {@link WhenFactory} or dependency injection.  This interface is only meant to
+ * be implemented by this library, and new methods may be added to it in any release.  Unlike
+ * {@link Promise}, which foreign promise types may implement, it gets no default implementations.
  */
 public interface When {
 
@@ -117,6 +124,49 @@ public interface When {
      */
     <T> Promise<T> resolve(Thenable<T> x);
 
+    /**
+     * Create a promise that fulfills with x after ms milliseconds
+     *
+     * @param x   value to fulfill with
+     * @param ms  delay in milliseconds
+     * @param <T> type of value and promise to be returned
+     * @return a promise
+     */
+    <T> Promise<T> delay(T x, long ms);
+
+    /**
+     * Create a promise that fulfills with the value of x ms milliseconds after x fulfills
+     *
+     * @param x   thenable to follow
+     * @param ms  delay in milliseconds
+     * @param <T> type of thenable and promise to be returned
+     * @return a promise
+     */
+    <T> Promise<T> delay(Thenable<T> x, long ms);
+
+    /**
+     * Create a promise that follows x, but rejects with a
+     * {@link com.englishtown.promises.exceptions.TimeoutException} if x has not settled within ms
+     * milliseconds.  The timer is cancelled as soon as x settles.
+     *
+     * @param x   thenable to follow
+     * @param ms  timeout in milliseconds
+     * @param <T> type of thenable and promise to be returned
+     * @return a promise
+     */
+    <T> Promise<T> timeout(Thenable<T> x, long ms);
+
+    /**
+     * Create a promise that follows a {@link CompletionStage}, such as a {@link java.util.concurrent.CompletableFuture}.
+     * The promise settles directly when the stage completes, without an intermediate thenable.
+     * A cancelled stage rejects the promise with its {@link java.util.concurrent.CancellationException}.
+     *
+     * @param stage completion stage to follow
+     * @param <T>   type of stage and promise to be returned
+     * @return a trusted promise
+     */
+    <T> Promise<T> from(CompletionStage<T> stage);
+
     /**
      * Create a rejected promise
      *
@@ -135,6 +185,16 @@ public interface When {
      */
     <T> Promise<T> promise(PromiseResolver<T> resolver);
 
+    /**
+     * Creates a new promise whose fate is determined by resolver, which may register a hook
+     * that stops its work if the promise is cancelled.
+     *
+     * @param resolver function(resolve, reject, onCancel)
+     * @param <T>      type of resolver and returned promise
+     * @return promise whose fate is determine by resolver
+     */
+    <T> Promise<T> promise(CancellablePromiseResolver<T> resolver);
+
     /**
      * Creates a {promise, resolver} pair, either or both of which
      * may be given out safely to consumers.
@@ -176,6 +236,19 @@ public interface When {
      */
     <T> Promise<List<State<T>>> settle(List<? extends Thenable<T>> promises);
 
+    /**
+     * Call consumer with the outcome state and input index of each promise as it settles,
+     * in completion order, without collecting the outcomes.  The consumer is never called
+     * concurrently.
+     *
+     * @param promises list of promises
+     * @param consumer called with each outcome state and its index
+     * @param <T>      type of promises
+     * @return {Promise} promise that fulfills once every outcome has been consumed, or
+     * rejects if the consumer throws
+     */
+    <T> Promise<Void> onEachSettled(List<? extends Thenable<T>> promises, ObjIntConsumer<State<T>> consumer);
+
     /**
      * One-winner race
      *
@@ -207,6 +280,34 @@ public interface When {
      */
     <T> Promise<List<T>> map(List<? extends Thenable<T>> promises, Function<T, ? extends Thenable<T>> mapFunc);
 
+    /**
+     * Promise-aware map with bounded concurrency.  At most maxConcurrency mapped promises
+     * are pending at any time, the next input is mapped as an earlier one settles.
+     *
+     * @param promises       promises or values to map, a list or a lazily generated iterable
+     * @param mapFunc        map function which may return a promise or value
+     * @param maxConcurrency max number of mapped promises pending at once
+     * @param <T>            type of promises
+     * @param <U>            type of mapped values
+     * @return {Promise} promise that will fulfill with a list of mapped values in input order,
+     * or reject if any input or mapped promise rejects.
+     */
+    <T, U> Promise<List<U>> map(Iterable<? extends Thenable<T>> promises, Function<T, ? extends Thenable<U>> mapFunc, int maxConcurrency);
+
+    /**
+     * Promise-aware map with bounded concurrency over an iterator.  Inputs are only taken
+     * from the iterator as earlier mapped promises settle, so inputs can be generated lazily.
+     *
+     * @param promises       iterator of promises or values to map
+     * @param mapFunc        map function which may return a promise or value
+     * @param maxConcurrency max number of mapped promises pending at once
+     * @param <T>            type of promises
+     * @param <U>            type of mapped values
+     * @return {Promise} promise that will fulfill with a list of mapped values in input order,
+     * or reject if any input or mapped promise rejects.
+     */
+    <T, U> Promise<List<U>> map(Iterator<? extends Thenable<T>> promises, Function<T, ? extends Thenable<U>> mapFunc, int maxConcurrency);
+
     /**
      * Traditional reduce function, similar to `Array.prototype.reduce()`, but
      * input may contain promises and/or values, and reduceFunc
@@ -237,6 +338,19 @@ public interface When {
      */
     <T, U> Promise<U> reduce(List<? extends Thenable<T>> promises, BiFunction<U, T, ? extends Thenable<U>> f, Thenable<U> initialValue);
 
+    /**
+     * Reduce function for an associative reduceFunc.  Values are combined pairwise in a
+     * balanced tree as they settle instead of strictly left to right, so the number of
+     * reduceFunc calls left after the last input settles is O(log n) rather than O(n).
+     *
+     * @param promises array of promises and/or values
+     * @param f        associative reduce function reduce(leftValue, rightValue)
+     * @param <T>      type of promises
+     * @return {Promise} that will resolve to the final reduced value, or reject if the
+     * array is empty
+     */
+    <T> Promise<T> reduceAssociative(List<? extends Thenable<T>> promises, BiFunction<T, T, ? extends Thenable<T>> f);
+
     /**
      * Run array of tasks in sequence with no overlap
      *
@@ -259,4 +373,14 @@ public interface When {
      * @return winning promise
      */
     <T> Promise<T> race(List<? extends Thenable<T>> promises);
+
+    /**
+     * Returns a When whose promises run their continuations on the scheduler's serial lane for key,
+     * so continuations for the same key run one at a time and in order, while other keys run in
+     * parallel.  With a single drainer scheduler such as the default this returns the same When.
+     *
+     * @param key key such as an entity id
+     * @return a When bound to the key's serial lane
+     */
+    When serialOn(Object key);
 }
@@ -12,17 +12,64 @@ import java.util.concurrent.Executor;
  */
 public class WhenFactory {
 
+    /**
+     * Create a {@link When} that runs drains on a new {@link AsyncExecutor} with default options.
+     * The executor cannot be shut down, but its idle threads exit after the default keep-alive time.
+     *
+     * @return a new When
+     */
     public static When createAsync() {
         return createFor(AsyncExecutor::new);
     }
 
+    /**
+     * Create a {@link When} that runs drains on an {@link AsyncExecutor} owned by the caller, who
+     * is responsible for shutting it down
+     *
+     * @param executor executor to run drains
+     * @return a new When
+     */
+    public static When createAsync(AsyncExecutor executor) {
+        return createFor(() -> executor);
+    }
+
+    /**
+     * Create a {@link When} that runs drains and assimilation tasks on virtual threads, or on the
+     * {@link AsyncExecutor} fixed pool when the JDK does not support virtual threads.
+     *
+     * @return a new When
+     */
+    public static When createVirtual() {
+        return createFor(VirtualThreadExecutor::new);
+    }
+
+    /**
+     * Create a {@link When} that runs drains on the calling thread.  Drains are trampolined by a
+     * {@link TrampolineExecutor}, so stack depth stays constant however long a promise chain is.
+     *
+     * @return a new When
+     */
     public static When createSync() {
-        return createFor(SyncExecutor::new);
+        return createFor(TrampolineExecutor::new);
     }
 
     public static When createFor(Provider<Executor> provider) {
-        Scheduler scheduler = new DefaultScheduler(provider);
-        Environment environment = new DefaultEnvironment(scheduler);
+        return createFor(new DefaultScheduler(provider));
+    }
+
+    public static When createFor(Scheduler scheduler) {
+        return createFor(scheduler, 0);
+    }
+
+    /**
+     * Create a {@link When} with eager mode enabled, see {@link Environment#getMaxEagerDepth()}
+     *
+     * @param scheduler     scheduler to run tasks
+     * @param maxEagerDepth max nested depth of eager callbacks on settled promises, 0 to disable eager mode
+     * @return a new When
+     */
+    public static When createFor(Scheduler scheduler, int maxEagerDepth) {
+        Environment environment = new DefaultEnvironment(scheduler, maxEagerDepth);
         PromiseHelper helper = new PromiseHelper(environment, new NOPContext(), new NOPReporter());
         return new DefaultWhen(helper, new ArrayHelper(helper));
     }
@@ -0,0 +1,12 @@
+package com.englishtown.promises.exceptions;
+
+/**
+ * Exception a promise is rejected with when it does not settle before its timeout
+ */
+public class TimeoutException extends RuntimeException {
+
+    public TimeoutException(String message) {
+        super(message);
+    }
+
+}
@@ -11,13 +11,28 @@ import java.util.concurrent.Executor;
  * Guice when.java binder
  */
 public class WhenBinder extends AbstractModule {
+
+    private final Class<? extends Executor> executorType;
+
+    public WhenBinder() {
+        this(AsyncExecutor.class);
+    }
+
+    /**
+     * @param executorType the executor used to run scheduler drains, for example
+     *                     {@link VirtualThreadExecutor} to run them on virtual threads
+     */
+    public WhenBinder(Class<? extends Executor> executorType) {
+        this.executorType = executorType;
+    }
+
     /**
      * Configures a {@link com.google.inject.Binder} via the exposed methods.
      */
     @Override
     protected void configure() {
 
-        bind(Executor.class).to(AsyncExecutor.class).in(Singleton.class);
+        bind(Executor.class).to(executorType).in(Singleton.class);
         bind(Scheduler.class).to(DefaultScheduler.class).in(Singleton.class);
         bind(Environment.class).to(DefaultEnvironment.class).in(Singleton.class);
         bind(Context.class).to(NOPContext.class).in(Singleton.class);
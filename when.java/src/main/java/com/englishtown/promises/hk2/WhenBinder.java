@@ -13,6 +13,21 @@ import java.util.concurrent.Executor;
  * HK2 when.java binder
  */
 public class WhenBinder extends AbstractBinder {
+
+    private final Class<? extends Executor> executorType;
+
+    public WhenBinder() {
+        this(AsyncExecutor.class);
+    }
+
+    /**
+     * @param executorType the executor used to run scheduler drains, for example
+     *                     {@link VirtualThreadExecutor} to run them on virtual threads
+     */
+    public WhenBinder(Class<? extends Executor> executorType) {
+        this.executorType = executorType;
+    }
+
     /**
      * Implement to provide binding definitions using the exposed binding
      * methods.
@@ -20,7 +35,7 @@ public class WhenBinder extends AbstractBinder {
     @Override
     protected void configure() {
 
-        bind(AsyncExecutor.class).to(Executor.class).in(Singleton.class);
+        bind(executorType).to(Executor.class).in(Singleton.class);
         bind(DefaultScheduler.class).to(Scheduler.class).in(Singleton.class);
         bind(DefaultEnvironment.class).to(Environment.class).in(Singleton.class);
         bind(NOPContext.class).to(Context.class).in(Singleton.class);
@@ -1,20 +1,62 @@
 package com.englishtown.promises.impl;
 
 import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Asynchronous executor that uses a fixed thread pool
+ * Asynchronous executor that uses a fixed thread pool, configured by {@link AsyncExecutorOptions}.
+ * Pool threads exit after being idle for the keep-alive time, so an executor that is never shut
+ * down does not hold on to its threads.
  */
 public class AsyncExecutor implements Executor {
 
-    private ExecutorService executorService = Executors.newFixedThreadPool(20);
+    private final ThreadPoolExecutor executorService;
 
     @Inject
     public AsyncExecutor() {
+        this(new AsyncExecutorOptions());
+    }
+
+    public AsyncExecutor(AsyncExecutorOptions options) {
+        int poolSize = options.getPoolSize();
+        BlockingQueue<Runnable> queue = options.getQueueSize() > 0
+                ? new ArrayBlockingQueue<>(options.getQueueSize())
+                : new LinkedBlockingQueue<>();
+        ThreadFactory threadFactory = options.getThreadFactory() != null
+                ? options.getThreadFactory()
+                : createThreadFactory(options);
+
+        executorService = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                options.getKeepAliveMillis(),
+                TimeUnit.MILLISECONDS,
+                queue,
+                threadFactory,
+                options.getRejectedExecutionHandler());
+        executorService.allowCoreThreadTimeOut(options.getKeepAliveMillis() > 0);
+    }
+
+    private static ThreadFactory createThreadFactory(AsyncExecutorOptions options) {
+        AtomicInteger count = new AtomicInteger();
+        String prefix = options.getThreadNamePrefix();
+        boolean daemon = options.isDaemon();
+        int priority = options.getPriority();
 
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(daemon);
+            t.setPriority(priority);
+            return t;
+        };
     }
 
     /**
@@ -31,4 +73,44 @@ public class AsyncExecutor implements Executor {
     public void execute(Runnable command) {
         executorService.execute(command);
     }
+
+    /**
+     * Stop accepting new drains.  Drains that are already queued or running still run, and
+     * a running drain keeps going until its scheduler queue is empty, so pending continuations
+     * are completed.
+     */
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+    /**
+     * Attempt to stop all running drains and discard queued ones
+     *
+     * @return the drains that never started
+     */
+    public List<Runnable> shutdownNow() {
+        return executorService.shutdownNow();
+    }
+
+    /**
+     * Block until all drains have completed after a shutdown, the timeout occurs,
+     * or the current thread is interrupted, whichever happens first.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the time unit of the timeout argument
+     * @return true if the executor terminated, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executorService.awaitTermination(timeout, unit);
+    }
+
+    public boolean isShutdown() {
+        return executorService.isShutdown();
+    }
+
+    public boolean isTerminated() {
+        return executorService.isTerminated();
+    }
+
 }
@@ -0,0 +1,146 @@
+package com.englishtown.promises.impl;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Options used to configure an {@link AsyncExecutor}
+ */
+public class AsyncExecutorOptions {
+
+    public static final int DEFAULT_POOL_SIZE = 20;
+    public static final String DEFAULT_THREAD_NAME_PREFIX = "when.java-async-";
+    public static final long DEFAULT_KEEP_ALIVE_MILLIS = 60_000;
+
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private int queueSize = 0;
+    private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+    private String threadNamePrefix = DEFAULT_THREAD_NAME_PREFIX;
+    private boolean daemon = true;
+    private int priority = Thread.NORM_PRIORITY;
+    private ThreadFactory threadFactory;
+    private RejectedExecutionHandler rejectedExecutionHandler = new ThreadPoolExecutor.AbortPolicy();
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @param poolSize the number of threads in the pool
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setPoolSize(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be greater than 0");
+        }
+        this.poolSize = poolSize;
+        return this;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @param queueSize the maximum number of tasks waiting for a thread, 0 for an unbounded queue
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setQueueSize(int queueSize) {
+        if (queueSize < 0) {
+            throw new IllegalArgumentException("queueSize cannot be negative");
+        }
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    /**
+     * @param keepAliveMillis how long an idle pool thread waits for work before it exits, 0 to keep
+     *                        threads until the executor is shut down
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setKeepAliveMillis(long keepAliveMillis) {
+        if (keepAliveMillis < 0) {
+            throw new IllegalArgumentException("keepAliveMillis cannot be negative");
+        }
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    public String getThreadNamePrefix() {
+        return threadNamePrefix;
+    }
+
+    /**
+     * @param threadNamePrefix prefix for pool thread names, followed by a thread number
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setThreadNamePrefix(String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+        return this;
+    }
+
+    public boolean isDaemon() {
+        return daemon;
+    }
+
+    /**
+     * @param daemon whether pool threads are daemon threads that do not keep the JVM alive
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setDaemon(boolean daemon) {
+        this.daemon = daemon;
+        return this;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * @param priority the pool thread priority
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setPriority(int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("priority is out of range");
+        }
+        this.priority = priority;
+        return this;
+    }
+
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * @param threadFactory a custom thread factory, the thread name, daemon and priority options are
+     *                      ignored when set
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        return this;
+    }
+
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return rejectedExecutionHandler;
+    }
+
+    /**
+     * @param rejectedExecutionHandler policy used when the queue is full or the executor is shut down
+     * @return this options instance
+     */
+    public AsyncExecutorOptions setRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+        if (rejectedExecutionHandler == null) {
+            throw new IllegalArgumentException("rejectedExecutionHandler cannot be null");
+        }
+        this.rejectedExecutionHandler = rejectedExecutionHandler;
+        return this;
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.englishtown.promises.impl;
 
 import com.englishtown.promises.Environment;
+import com.englishtown.promises.Thenable;
+import com.englishtown.promises.Timer;
 
 import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Default implementation of {@link com.englishtown.promises.Environment}
@@ -10,10 +14,25 @@ import javax.inject.Inject;
 public class DefaultEnvironment implements Environment {
 
     private final com.englishtown.promises.Scheduler scheduler;
+    private final int maxEagerDepth;
+    private final List<Class<?>> trustedTypes = new CopyOnWriteArrayList<>();
+    private volatile Timer timer = HashedWheelTimer.getDefault();
 
     @Inject
     public DefaultEnvironment(com.englishtown.promises.Scheduler scheduler) {
+        this(scheduler, 0);
+    }
+
+    /**
+     * @param scheduler     scheduler to run tasks
+     * @param maxEagerDepth max nested depth of eager callbacks on settled promises, 0 to disable eager mode
+     */
+    public DefaultEnvironment(com.englishtown.promises.Scheduler scheduler, int maxEagerDepth) {
+        if (maxEagerDepth < 0) {
+            throw new IllegalArgumentException("maxEagerDepth cannot be negative");
+        }
         this.scheduler = scheduler;
+        this.maxEagerDepth = maxEagerDepth;
     }
 
     @Override
@@ -21,4 +40,54 @@ public class DefaultEnvironment implements Environment {
         return scheduler;
     }
 
+    @Override
+    public int getMaxEagerDepth() {
+        return maxEagerDepth;
+    }
+
+    @Override
+    public Timer getTimer() {
+        return timer;
+    }
+
+    /**
+     * Replace the timer used by delay() and timeout().  The timer is read each time one is
+     * scheduled, so this also applies to promise helpers already created for this environment.
+     *
+     * @param timer timer used by delay() and timeout()
+     * @return this environment
+     */
+    public DefaultEnvironment setTimer(Timer timer) {
+        if (timer == null) {
+            throw new IllegalArgumentException("timer cannot be null");
+        }
+        this.timer = timer;
+        return this;
+    }
+
+    /**
+     * Trust thenables of a type, such as the promises of another library or a known-safe adapter.
+     * See {@link com.englishtown.promises.Environment#isTrusted(Thenable)}.
+     *
+     * @param type thenable class or interface to trust, including subtypes
+     * @return this environment
+     */
+    public DefaultEnvironment addTrustedType(Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("type cannot be null");
+        }
+        trustedTypes.add(type);
+        return this;
+    }
+
+    @Override
+    public boolean isTrusted(Thenable<?> x) {
+        for (Class<?> type : trustedTypes) {
+            if (type.isInstance(x)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
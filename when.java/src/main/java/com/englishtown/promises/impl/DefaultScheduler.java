@@ -1,5 +1,6 @@
 package com.englishtown.promises.impl;
 
+import com.englishtown.promises.Priority;
 import com.englishtown.promises.Scheduler;
 
 import javax.inject.Inject;
@@ -7,23 +8,70 @@ import javax.inject.Provider;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of {@link com.englishtown.promises.Scheduler}
+ * <p>
+ * The drain state is an atomic idle/scheduled/draining state machine, so at most one
+ * drain is ever active and a task enqueued while a drain is finishing is never stranded.
+ * <p>
+ * A drain can optionally be given a budget of tasks and/or nanoseconds per turn.  When the budget
+ * runs out with tasks still queued, the drain yields its executor thread and reschedules itself
+ * behind any other work already queued on the executor.  If the executor rejects the reschedule,
+ * for example after a shutdown, the drain keeps going on its current thread instead.
+ * <p>
+ * Tasks run from high, normal and background priority lanes, highest first.  To keep lower lanes
+ * from starving, every 8th task is taken from the normal lane and every
+ * 64th task from the background lane when they have work queued.
  */
 public class DefaultScheduler implements Scheduler {
 
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int DRAINING = 2;
+
+    private static final int NORMAL_INTERVAL = 8;
+    private static final int BACKGROUND_INTERVAL = 64;
+
     private final Executor _enqueue;
+    private final Runnable _drain;
+    private final Queue<Runnable> _highQueue;
     private final Queue<Runnable> _handlerQueue;
+    private final Queue<Runnable> _backgroundQueue;
     private final Queue<Runnable> _afterQueue;
-    private boolean _running;
+    private final AtomicInteger _state;
+    private final int _maxTasksPerDrain;
+    private final long _maxNanosPerDrain;
+    private final AtomicLong _budgetExhaustedCount;
+    private int _turn;
 
     @Inject
     public DefaultScheduler(Provider<Executor> enqueue) {
+        this(enqueue, 0, 0);
+    }
+
+    /**
+     * @param enqueue          provider for the executor that runs drains
+     * @param maxTasksPerDrain max number of tasks run per drain turn, 0 for no limit
+     * @param maxNanosPerDrain max nanoseconds spent per drain turn, 0 for no limit.  The
+     *                         budget is checked between tasks, a single task is never interrupted.
+     */
+    public DefaultScheduler(Provider<Executor> enqueue, int maxTasksPerDrain, long maxNanosPerDrain) {
+        if (maxTasksPerDrain < 0 || maxNanosPerDrain < 0) {
+            throw new IllegalArgumentException("drain budget cannot be negative");
+        }
         this._enqueue = enqueue.get();
+        this._drain = this::drain;
+        this._highQueue = new ConcurrentLinkedQueue<>();
         this._handlerQueue = new ConcurrentLinkedQueue<>();
+        this._backgroundQueue = new ConcurrentLinkedQueue<>();
         this._afterQueue = new ConcurrentLinkedQueue<>();
-        this._running = false;
+        this._state = new AtomicInteger(IDLE);
+        this._maxTasksPerDrain = maxTasksPerDrain;
+        this._maxNanosPerDrain = maxNanosPerDrain;
+        this._budgetExhaustedCount = new AtomicLong();
     }
 
     /**
@@ -35,43 +83,160 @@ public class DefaultScheduler implements Scheduler {
     @Override
     public void enqueue(Runnable task) {
         this._handlerQueue.add(task);
-        if (!this._running) { // TODO: sync
-            this._running = true;
-            this._enqueue.execute(this::drain);
+        schedule();
+    }
+
+    @Override
+    public void enqueue(Runnable task, Priority priority) {
+        if (priority == Priority.HIGH) {
+            this._highQueue.add(task);
+        } else if (priority == Priority.BACKGROUND) {
+            this._backgroundQueue.add(task);
+        } else {
+            this._handlerQueue.add(task);
         }
+        schedule();
     }
 
     @Override
     public void afterQueue(Runnable task) {
         this._afterQueue.add(task);
-        if (!this._running) {
-            this._running = true;
-            this._enqueue.execute(this::drain);
+        schedule();
+    }
+
+    /**
+     * @return the number of drain turns that ran out of budget and yielded with tasks still queued
+     */
+    public long getBudgetExhaustedCount() {
+        return this._budgetExhaustedCount.get();
+    }
+
+    /**
+     * Schedule a drain unless one is already scheduled or running.  The plain read
+     * keeps the common "already draining" case free of CAS traffic.
+     */
+    private void schedule() {
+        if (this._state.get() == IDLE && this._state.compareAndSet(IDLE, SCHEDULED)) {
+            execute();
+        }
+    }
+
+    private void execute() {
+        try {
+            this._enqueue.execute(this._drain);
+        } catch (RuntimeException e) {
+            // The executor rejected the drain (e.g. it was shut down), allow a later retry
+            this._state.compareAndSet(SCHEDULED, IDLE);
+            throw e;
+        }
+    }
+
+    /**
+     * Hand the drain back to the executor after a budgeted turn
+     *
+     * @return false if the executor rejected it, e.g. because it was shut down
+     */
+    private boolean reschedule() {
+        try {
+            this._enqueue.execute(this._drain);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
         }
     }
 
     /**
      * Drain the handler queue entirely, being careful to allow the
      * queue to be extended while it is being processed, and to continue
-     * processing until it is truly empty.
+     * processing until it is truly empty or the drain budget runs out.
      */
     public void drain() {
-        Queue<Runnable> q = this._handlerQueue;
-        Runnable task = q.poll();
+        if (!this._state.compareAndSet(SCHEDULED, DRAINING)) {
+            // Another drain is already active, it will pick up any queued tasks
+            return;
+        }
 
-        while (task != null) {
-            task.run();
-            task = q.poll();
+        boolean completed = false;
+        try {
+            do {
+                while (!runTasks()) {
+                    // Budget exhausted, yield the thread and continue in a later turn
+                    this._state.set(SCHEDULED);
+                    if (reschedule()) {
+                        this._budgetExhaustedCount.incrementAndGet();
+                        completed = true;
+                        return;
+                    }
+                    // The executor no longer takes drains, finish the queue on this thread
+                    this._state.set(DRAINING);
+                }
+                this._state.set(IDLE);
+                // Re-check after going idle: a task enqueued between the last poll and the
+                // state change saw DRAINING and did not schedule, so it is ours to run.
+            } while (hasTasks() && this._state.compareAndSet(IDLE, DRAINING));
+            completed = true;
+        } finally {
+            if (!completed) {
+                // A task threw, don't leave the remaining tasks stranded
+                this._state.set(IDLE);
+                if (hasTasks()) {
+                    schedule();
+                }
+            }
         }
+    }
 
-        this._running = false;
+    /**
+     * Run handler queue tasks, then after queue tasks, until all are empty or the budget is used up
+     *
+     * @return false if the budget ran out with tasks still queued
+     */
+    private boolean runTasks() {
+        int maxTasks = this._maxTasksPerDrain;
+        long maxNanos = this._maxNanosPerDrain;
+        long start = maxNanos > 0 ? System.nanoTime() : 0;
+        int count = 0;
 
-        q = this._afterQueue;
-        task = q.poll();
+        Runnable task = poll();
         while (task != null) {
             task.run();
-            task = q.poll();
+            ++count;
+
+            if ((maxTasks > 0 && count >= maxTasks) || (maxNanos > 0 && System.nanoTime() - start >= maxNanos)) {
+                return !hasTasks();
+            }
+            task = poll();
         }
+        return true;
+    }
+
+    /**
+     * Poll the highest priority lane with work, except on the turns reserved for lower lanes.
+     * Only the active drainer polls, so the turn counter needs no synchronization.
+     */
+    private Runnable poll() {
+        int turn = ++this._turn;
+        Runnable task;
+
+        if (turn % BACKGROUND_INTERVAL == 0 && (task = this._backgroundQueue.poll()) != null) {
+            return task;
+        }
+        if (turn % NORMAL_INTERVAL == 0 && (task = this._handlerQueue.poll()) != null) {
+            return task;
+        }
+        if ((task = this._highQueue.poll()) != null
+                || (task = this._handlerQueue.poll()) != null
+                || (task = this._backgroundQueue.poll()) != null) {
+            return task;
+        }
+        return this._afterQueue.poll();
+    }
+
+    private boolean hasTasks() {
+        return !this._highQueue.isEmpty()
+                || !this._handlerQueue.isEmpty()
+                || !this._backgroundQueue.isEmpty()
+                || !this._afterQueue.isEmpty();
     }
 
 }
@@ -8,9 +8,14 @@ import com.englishtown.promises.internal.TrustedPromise;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Default implementation of {@link com.englishtown.promises.When}
@@ -19,6 +24,7 @@ public class DefaultWhen implements When {
 
     private final PromiseHelper helper;
     private final ArrayHelper arrayHelper;
+    private final ConcurrentMap<Scheduler, When> serialWhens = new ConcurrentHashMap<>();
 
     @Inject
     public DefaultWhen(PromiseHelper helper, ArrayHelper arrayHelper) {
@@ -79,6 +85,26 @@ public class DefaultWhen implements When {
         return helper.resolve(x);
     }
 
+    @Override
+    public <T> Promise<T> delay(T x, long ms) {
+        return helper.delay(helper.resolve(x), ms);
+    }
+
+    @Override
+    public <T> Promise<T> delay(Thenable<T> x, long ms) {
+        return helper.delay(x, ms);
+    }
+
+    @Override
+    public <T> Promise<T> timeout(Thenable<T> x, long ms) {
+        return helper.timeout(x, ms);
+    }
+
+    @Override
+    public <T> Promise<T> from(CompletionStage<T> stage) {
+        return helper.fromCompletionStage(stage);
+    }
+
     @Override
     public <T> Promise<T> reject(Throwable x) {
         return helper.reject(x);
@@ -89,6 +115,11 @@ public class DefaultWhen implements When {
         return new TrustedPromise<>(resolver, helper);
     }
 
+    @Override
+    public <T> Promise<T> promise(CancellablePromiseResolver<T> resolver) {
+        return new TrustedPromise<>(resolver, helper);
+    }
+
 //    /**
 //     * Lift the supplied function, creating a version of f that returns
 //     * promises, and accepts promises as arguments.
@@ -193,6 +224,11 @@ public class DefaultWhen implements When {
         return when(promises, arrayHelper::settle);
     }
 
+    @Override
+    public <T> Promise<Void> onEachSettled(List<? extends Thenable<T>> promises, ObjIntConsumer<State<T>> consumer) {
+        return arrayHelper.onEachSettled(promises, consumer);
+    }
+
     @Override
     public <T> Promise<T> any(List<? extends Thenable<T>> promises) {
         return when(promises, arrayHelper::any);
@@ -208,6 +244,19 @@ public class DefaultWhen implements When {
         return when(promises, (promises1) -> arrayHelper.map(promises1, mapFunc, null));
     }
 
+    @Override
+    public <T, U> Promise<List<U>> map(Iterable<? extends Thenable<T>> promises, Function<T, ? extends Thenable<U>> mapFunc, int maxConcurrency) {
+        if (promises == null) {
+            throw new IllegalArgumentException("promises cannot be null");
+        }
+        return arrayHelper.map(promises.iterator(), mapFunc, maxConcurrency);
+    }
+
+    @Override
+    public <T, U> Promise<List<U>> map(Iterator<? extends Thenable<T>> promises, Function<T, ? extends Thenable<U>> mapFunc, int maxConcurrency) {
+        return arrayHelper.map(promises, mapFunc, maxConcurrency);
+    }
+
     @Override
     public <T> Promise<T> reduce(List<? extends Thenable<T>> promises, BiFunction<T, T, ? extends Thenable<T>> f) {
         return when(promises, (promises1) -> arrayHelper.reduce(promises1, f));
@@ -218,6 +267,11 @@ public class DefaultWhen implements When {
         return when(promises, (promises1) -> arrayHelper.reduce(promises1, f, initialValue));
     }
 
+    @Override
+    public <T> Promise<T> reduceAssociative(List<? extends Thenable<T>> promises, BiFunction<T, T, ? extends Thenable<T>> f) {
+        return when(promises, (promises1) -> arrayHelper.reduceAssociative(promises1, f));
+    }
+
 //    /**
 //     * Traditional reduce function, similar to `Array.prototype.reduceRight()`, but
 //     * input may contain promises and/or values, and reduceFunc
@@ -266,4 +320,17 @@ public class DefaultWhen implements When {
         return helper.race(promises);
     }
 
+    @Override
+    public When serialOn(Object key) {
+        Scheduler lane = helper.getScheduler().forKey(key);
+        if (lane == helper.getScheduler()) {
+            return this;
+        }
+        // Schedulers stripe keys over a fixed set of lanes, so this cache stays bounded
+        return serialWhens.computeIfAbsent(lane, s -> {
+            PromiseHelper h = helper.withScheduler(s);
+            return new DefaultWhen(h, new ArrayHelper(h));
+        });
+    }
+
 }
@@ -0,0 +1,310 @@
+package com.englishtown.promises.impl;
+
+import com.englishtown.promises.Timer;
+
+import javax.inject.Inject;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link com.englishtown.promises.Timer} backed by a hashed timing wheel.
+ * <p>
+ * The wheel is a ring of buckets, one per tick, each holding a doubly linked list of timeouts.  A single
+ * daemon thread advances one bucket per tick and runs the timeouts due in it, so a timeout costs one
+ * small object however many are pending, and fires up to one tick late.  Timeouts further away than
+ * one turn of the wheel wait a number of extra rounds in their bucket.
+ * <p>
+ * New and cancelled timeouts are handed to the timer thread through lock-free queues, and only the timer
+ * thread touches the buckets.  Cancelling unlinks the timeout from its bucket on the next tick, in O(1).
+ */
+public class HashedWheelTimer implements Timer {
+
+    private static final long DEFAULT_TICK_MILLIS = 10;
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static final int INIT = 0;
+    private static final int STARTED = 1;
+    private static final int STOPPED = 2;
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger state = new AtomicInteger(INIT);
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private final boolean shared;
+
+    // Only used by the timer thread
+    private long startTime;
+    private long tick;
+
+    @Inject
+    public HashedWheelTimer() {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * @param tickDuration  duration of one tick, the timer's precision
+     * @param unit          unit of tickDuration
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this(tickDuration, unit, ticksPerWheel, false);
+    }
+
+    private HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, boolean shared) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0");
+        }
+        if (ticksPerWheel < 1 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+        }
+
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.worker = new Thread(this::run, "when.java-timer-" + threadCount.incrementAndGet());
+        this.worker.setDaemon(true);
+        this.shared = shared;
+    }
+
+    /**
+     * @return the shared timer used by default environments, which cannot be stopped
+     */
+    public static HashedWheelTimer getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The timer thread is started by the first call.
+     */
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new IllegalArgumentException("task cannot be null");
+        }
+
+        start();
+
+        Entry e = new Entry(this, task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+        pending.incrementAndGet();
+        added.add(e);
+        return e;
+    }
+
+    /**
+     * Stop the timer thread.  Pending timeouts never run, and scheduling after stop throws.
+     *
+     * @throws IllegalStateException if this is the shared {@link #getDefault() default} timer
+     */
+    public void stop() {
+        if (shared) {
+            throw new IllegalStateException("the shared default timer cannot be stopped");
+        }
+        if (state.getAndSet(STOPPED) == STARTED) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * @return number of timeouts that have neither run nor been cancelled
+     */
+    public long getPendingTimeouts() {
+        return pending.get();
+    }
+
+    private void start() {
+        int s = state.get();
+        if (s == INIT && state.compareAndSet(INIT, STARTED)) {
+            worker.start();
+        } else if (s == STOPPED) {
+            throw new IllegalStateException("timer is stopped");
+        }
+    }
+
+    private void run() {
+        startTime = System.nanoTime();
+
+        while (state.get() == STARTED) {
+            if (!waitForNextTick()) {
+                break;
+            }
+
+            removeCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    /**
+     * @return false if the timer was stopped
+     */
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+
+        for (; ; ) {
+            long current = System.nanoTime() - startTime;
+            long sleepMillis = (deadline - current + 999_999) / 1_000_000;
+            if (sleepMillis <= 0) {
+                return true;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                if (state.get() == STOPPED) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Entry e;
+        while ((e = added.poll()) != null) {
+            if (e.state != Entry.PENDING) {
+                // Cancelled before it reached the wheel
+                continue;
+            }
+
+            // Tick n runs once (n + 1) ticks have elapsed
+            long due = (e.deadline - startTime) / tickNanos;
+            e.remainingRounds = (due - tick) / wheel.length;
+
+            // Already overdue timeouts run on the current tick
+            wheel[(int) (Math.max(due, tick) & mask)].add(e);
+        }
+    }
+
+    private void removeCancelled() {
+        Entry e;
+        while ((e = cancelled.poll()) != null) {
+            if (e.bucket != null) {
+                e.bucket.remove(e);
+            }
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final HashedWheelTimer INSTANCE = new HashedWheelTimer(
+                DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL, true);
+    }
+
+    private static class Bucket {
+
+        private Entry head;
+        private Entry tail;
+
+        private void add(Entry e) {
+            e.bucket = this;
+            if (head == null) {
+                head = tail = e;
+            } else {
+                tail.next = e;
+                e.prev = tail;
+                tail = e;
+            }
+        }
+
+        private void remove(Entry e) {
+            if (e.prev != null) {
+                e.prev.next = e.next;
+            } else {
+                head = e.next;
+            }
+            if (e.next != null) {
+                e.next.prev = e.prev;
+            } else {
+                tail = e.prev;
+            }
+            e.prev = e.next = null;
+            e.bucket = null;
+        }
+
+        private void expire() {
+            Entry e = head;
+            while (e != null) {
+                Entry next = e.next;
+                if (e.remainingRounds <= 0) {
+                    remove(e);
+                    e.expire();
+                } else {
+                    e.remainingRounds--;
+                }
+                e = next;
+            }
+        }
+
+    }
+
+    private static class Entry implements Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state = PENDING;
+
+        // Only used by the timer thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Entry prev;
+        private Entry next;
+
+        private Entry(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            timer.pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, t);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.englishtown.promises.impl;
+
+import com.englishtown.promises.Priority;
+import com.englishtown.promises.Scheduler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link com.englishtown.promises.Scheduler} that stripes keys over a fixed set of serial lanes.
+ * <p>
+ * Each lane is a {@link DefaultScheduler} with its own queue and single drainer, and all lanes share
+ * one executor.  Tasks for the same key always run one at a time and in order, while different lanes
+ * run in parallel.  Tasks enqueued without a key go to a lane picked by the calling thread.
+ */
+public class KeyedScheduler implements Scheduler {
+
+    private final Scheduler[] lanes;
+
+    @Inject
+    public KeyedScheduler(Provider<Executor> executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    public KeyedScheduler(Provider<Executor> executor, int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be greater than 0");
+        }
+        Executor e = executor.get();
+        lanes = new Scheduler[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new DefaultScheduler(() -> e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Scheduler forKey(Object key) {
+        int h = Objects.hashCode(key);
+        h ^= (h >>> 16);
+        return lanes[(h & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    @Override
+    public void enqueue(Runnable task) {
+        currentLane().enqueue(task);
+    }
+
+    @Override
+    public void enqueue(Runnable task, Priority priority) {
+        currentLane().enqueue(task, priority);
+    }
+
+    @Override
+    public void afterQueue(Runnable task) {
+        currentLane().afterQueue(task);
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    private Scheduler currentLane() {
+        return forKey(Thread.currentThread());
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.englishtown.promises.impl;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Synchronous executor that keeps a constant stack depth.
+ * <p>
+ * Commands run on the calling thread like {@link SyncExecutor}, but a command executed from within a
+ * running command is queued and run once the running command returns, instead of nesting on the
+ * stack.  Scheduler drains that reschedule themselves (e.g. when a drain budget runs out) then loop
+ * rather than recurse, no matter how long the promise chain is.
+ */
+public class TrampolineExecutor implements Executor {
+
+    private final ThreadLocal<Trampoline> trampolines = ThreadLocal.withInitial(Trampoline::new);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable command) {
+        Trampoline t = trampolines.get();
+
+        if (t.running) {
+            // Already running a command on this thread, the outermost call will run it
+            t.pending.add(command);
+            return;
+        }
+
+        t.running = true;
+        try {
+            while (command != null) {
+                command.run();
+                command = t.pending.poll();
+            }
+        } finally {
+            t.running = false;
+            // A command threw, run the rest in a fresh trampoline
+            Runnable next = t.pending.poll();
+            if (next != null) {
+                execute(next);
+            }
+        }
+    }
+
+    private static class Trampoline {
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private boolean running;
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.englishtown.promises.impl;
+
+import javax.inject.Inject;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Executor that runs each task on a new virtual thread, so blocking work in callbacks does not
+ * starve a fixed pool.  On JDKs without virtual threads it falls back to an {@link AsyncExecutor}.
+ */
+public class VirtualThreadExecutor implements Executor {
+
+    private final Executor executor;
+    private final boolean virtual;
+
+    @Inject
+    public VirtualThreadExecutor() {
+        Executor e = newVirtualThreadPerTaskExecutor();
+        this.virtual = (e != null);
+        this.executor = virtual ? e : new AsyncExecutor();
+    }
+
+    /**
+     * Looked up reflectively so the library still runs on Java 8.  On JDKs where virtual threads
+     * are a preview feature that isn't enabled the factory method throws, which is also treated as
+     * unavailable.
+     */
+    private static Executor newVirtualThreadPerTaskExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (Executor) m.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if tasks run on virtual threads, false if the fixed pool fallback is used
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+}
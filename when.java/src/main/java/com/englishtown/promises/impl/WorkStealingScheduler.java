@@ -0,0 +1,221 @@
+package com.englishtown.promises.impl;
+
+import com.englishtown.promises.Scheduler;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link com.englishtown.promises.Scheduler} with one local task deque per worker.
+ * <p>
+ * Tasks enqueued while running on a worker stay on that worker's deque, tasks enqueued from any
+ * other thread go to a worker picked by the calling thread.  A worker that runs out of local work
+ * steals from the tail of the other workers' deques, and a worker that builds up a backlog wakes an
+ * idle worker to steal from it.
+ * <p>
+ * Tasks on a single worker run in FIFO order, but a stolen task may run concurrently with, or before,
+ * tasks left on its original worker.  The executor must provide at least as many threads as there
+ * are workers for the workers to run in parallel.
+ */
+public class WorkStealingScheduler implements Scheduler {
+
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int DRAINING = 2;
+
+    private final Executor executor;
+    private final Worker[] workers;
+    private final Queue<Runnable> afterQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleWorkers;
+    private final ThreadLocal<Worker> currentWorker = new ThreadLocal<>();
+    private final KeyedScheduler serialLanes;
+
+    @Inject
+    public WorkStealingScheduler(Provider<Executor> executor) {
+        this(executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingScheduler(Provider<Executor> executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than 0");
+        }
+        this.executor = executor.get();
+        this.workers = new Worker[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            workers[i] = new Worker(i);
+        }
+        this.idleWorkers = new AtomicInteger(parallelism);
+        this.serialLanes = new KeyedScheduler(() -> this.executor, parallelism);
+    }
+
+    /**
+     * Enqueue a task on the current worker, or on the calling thread's home worker if not
+     * called from a worker.
+     *
+     * @param task task to be run
+     */
+    @Override
+    public void enqueue(Runnable task) {
+        Worker w = currentWorker.get();
+
+        if (w == null) {
+            w = homeWorker();
+            w.deque.addLast(task);
+            w.signal();
+            return;
+        }
+
+        // The current worker is draining and will get to the task, only wake a
+        // thief if there is already a backlog for it to steal.
+        boolean backlog = !w.deque.isEmpty();
+        w.deque.addLast(task);
+        if (backlog && idleWorkers.get() > 0) {
+            signalIdle(w);
+        }
+    }
+
+    @Override
+    public void afterQueue(Runnable task) {
+        afterQueue.add(task);
+        if (currentWorker.get() == null) {
+            homeWorker().signal();
+        }
+    }
+
+    /**
+     * Stolen tasks are not serial, so keyed work runs on separate serial lanes that share the executor
+     *
+     * @param key key such as an entity id
+     * @return a serial scheduler for the key
+     */
+    @Override
+    public Scheduler forKey(Object key) {
+        return serialLanes.forKey(key);
+    }
+
+    public int getParallelism() {
+        return workers.length;
+    }
+
+    private Worker homeWorker() {
+        long id = Thread.currentThread().getId();
+        return workers[(int) ((id ^ (id >>> 32)) & Integer.MAX_VALUE) % workers.length];
+    }
+
+    private void signalIdle(Worker from) {
+        for (int i = 1; i < workers.length; i++) {
+            Worker w = workers[(from.index + i) % workers.length];
+            if (w.state.get() == IDLE && w.activate(SCHEDULED)) {
+                w.execute();
+                return;
+            }
+        }
+    }
+
+    private Runnable steal(Worker thief) {
+        for (int i = 1; i < workers.length; i++) {
+            Runnable task = workers[(thief.index + i) % workers.length].deque.pollLast();
+            if (task != null) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private class Worker {
+
+        private final int index;
+        private final Deque<Runnable> deque = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private final Runnable drain = this::drain;
+
+        private Worker(int index) {
+            this.index = index;
+        }
+
+        private boolean activate(int newState) {
+            if (state.compareAndSet(IDLE, newState)) {
+                idleWorkers.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private void deactivate() {
+            state.set(IDLE);
+            idleWorkers.incrementAndGet();
+        }
+
+        private void signal() {
+            if (state.get() == IDLE && activate(SCHEDULED)) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(drain);
+            } catch (RuntimeException e) {
+                // The executor rejected the drain (e.g. it was shut down), allow a later retry
+                if (state.compareAndSet(SCHEDULED, IDLE)) {
+                    idleWorkers.incrementAndGet();
+                }
+                throw e;
+            }
+        }
+
+        private Runnable poll() {
+            Runnable task = deque.pollFirst();
+            if (task == null) {
+                task = steal(this);
+            }
+            if (task == null) {
+                task = afterQueue.poll();
+            }
+            return task;
+        }
+
+        private boolean hasTasks() {
+            return !deque.isEmpty() || !afterQueue.isEmpty();
+        }
+
+        private void drain() {
+            if (!state.compareAndSet(SCHEDULED, DRAINING)) {
+                return;
+            }
+
+            Worker previous = currentWorker.get();
+            currentWorker.set(this);
+            boolean completed = false;
+
+            try {
+                do {
+                    Runnable task = poll();
+                    while (task != null) {
+                        task.run();
+                        task = poll();
+                    }
+                    deactivate();
+                } while (hasTasks() && activate(DRAINING));
+                completed = true;
+
+            } finally {
+                currentWorker.set(previous);
+                if (!completed) {
+                    deactivate();
+                    if (hasTasks()) {
+                        signal();
+                    }
+                }
+            }
+        }
+
+    }
+
+}
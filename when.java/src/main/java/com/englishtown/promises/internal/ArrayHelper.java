@@ -1,16 +1,24 @@
 package com.englishtown.promises.internal;
 
+import com.englishtown.promises.HandlerState;
 import com.englishtown.promises.Promise;
-import com.englishtown.promises.PromiseResolver;
 import com.englishtown.promises.State;
 import com.englishtown.promises.Thenable;
 import com.englishtown.promises.exceptions.RejectException;
+import com.englishtown.promises.internal.handlers.DeferredHandler;
+import com.englishtown.promises.internal.handlers.Handler;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +38,9 @@ public class ArrayHelper {
      * Return a promise that will fulfill when one of the promises
      * in the input array fulfills, or will reject when all promises
      * have rejected.
+     * <p>
+     * Safe when the input promises settle on different threads.  Once one fulfills the race gives
+     * up on the others, as described for {@link Promise#cancel()}, and no longer holds on to them.
      *
      * @param promises list of promises
      * @param <T>      type of promises
@@ -37,32 +48,30 @@ public class ArrayHelper {
      */
     public <T> Promise<T> any(List<? extends Thenable<T>> promises) {
 
-        PromiseResolver<T> resolver = (resolve, reject) -> {
-            ValueHolder<Integer> pending = new ValueHolder<>(promises.size());
-            List<Throwable> errors = new ArrayList<>();
-
-            Function<T, Promise<T>> handleResolve = (x) -> {
-                resolve.accept(x);
-                return null;
-            };
-
-            Function<Throwable, Promise<T>> handleReject = (e) -> {
-                errors.add(e);
-                if (--pending.value == 0) {
-                    reject.accept(new RejectException("All promises rejected", errors));
-                }
-                return null;
-            };
-
-            promises.forEach((p) -> {
-                helper.toPromise(p).then(handleResolve, handleReject);
-            });
-
-            if (pending.value == 0) {
-                resolve.accept(null);
+        int n = promises.size();
+        DeferredHandler<T> resolver = new DeferredHandler<>(helper, null);
+        Throwable[] errors = new Throwable[n];
+        AtomicInteger errorCursor = new AtomicInteger();
+        AtomicInteger pending = new AtomicInteger(n);
+
+        if (n == 0) {
+            resolver.resolve((T) null);
+            return new TrustedPromise<>(resolver, helper);
+        }
+
+        RetainedHandlers<T> retained = retain(promises);
+        resolver.onCancel(retained::release);
+
+        retained.attach(x -> {
+            resolver.resolve(x);
+            retained.release();
+        }, e -> {
+            errors[errorCursor.getAndIncrement()] = e;
+            // The last decrement sees every error written before the others' decrements
+            if (pending.decrementAndGet() == 0) {
+                resolver.reject(new RejectException("All promises rejected", Arrays.asList(errors)));
             }
-
-        };
+        });
 
         return new TrustedPromise<>(resolver, helper);
     }
@@ -73,59 +82,74 @@ public class ArrayHelper {
      * fulfilled, or will reject when it becomes impossible for n
      * input promises to fulfill (ie when promises.length - n + 1
      * have rejected)
+     * <p>
+     * Safe when the input promises settle on different threads.  Each fulfillment and rejection
+     * claims a slot in a pre-sized array with an atomic cursor, later ones are ignored.  Once the
+     * race settles it gives up on the pending inputs, as described for {@link Promise#cancel()}, and
+     * no longer holds on to them.
      *
      * @param promises list of promises
      * @param n        number of promises to fulfill
      * @param <T>      type of promises
      * @return promise for the earliest n fulfillment values
      */
+    @SuppressWarnings("unchecked")
     public <T> Promise<List<T>> some(List<? extends Thenable<T>> promises, int n) {
 
         int nFinal = Math.max(n, 0);
-
-        return new TrustedPromise<>((resolve, reject) -> {
-            final ValueHolder<Integer> nFulfill = new ValueHolder<>(0);
-            final ValueHolder<Integer> nReject = new ValueHolder<>(null);
-            List<T> results = new ArrayList<>(nFinal);
-            List<Throwable> errors = new ArrayList<>();
-
-            Function<T, Promise<T>> handleResolve = (x) -> {
-                if (nFulfill.value > 0) {
-                    --nFulfill.value;
-                    results.add(x);
-
-                    if (nFulfill.value == 0) {
-                        resolve.accept(results);
-                    }
+        int nFulfill = Math.min(nFinal, promises.size());
+        int nReject = Math.max(promises.size() - nFinal + 1, 0);
+
+        DeferredHandler<List<T>> resolver = new DeferredHandler<>(helper, null);
+        Object[] results = new Object[nFulfill];
+        Throwable[] errors = new Throwable[nReject];
+        AtomicInteger resultCursor = new AtomicInteger();
+        AtomicInteger errorCursor = new AtomicInteger();
+        AtomicInteger fulfilled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        if (nFulfill == 0) {
+            resolver.resolve(new ArrayList<>((List<T>) Arrays.asList(results)));
+            return new TrustedPromise<>(resolver, helper);
+        }
+
+        RetainedHandlers<T> retained = retain(promises);
+        resolver.onCancel(retained::release);
+
+        retained.attach(x -> {
+            int slot = resultCursor.getAndIncrement();
+            if (slot < nFulfill) {
+                results[slot] = x;
+                if (fulfilled.incrementAndGet() == nFulfill) {
+                    resolver.resolve(new ArrayList<>((List<T>) Arrays.asList(results)));
+                    retained.release();
                 }
-                return null;
-            };
-
-            Function<Throwable, Promise<T>> handleReject = (e) -> {
-                if (nReject.value > 0) {
-                    --nReject.value; // TODO: sync?
-                    errors.add(e);
-
-                    if (nReject.value == 0) {
-                        reject.accept(new RejectException("Too many rejections", errors));
-                    }
+            }
+        }, e -> {
+            int slot = errorCursor.getAndIncrement();
+            if (slot < nReject) {
+                errors[slot] = e;
+                if (rejected.incrementAndGet() == nReject) {
+                    resolver.reject(new RejectException("Too many rejections", Arrays.asList(errors)));
+                    retained.release();
                 }
-                return null;
-            };
-
-            nReject.value = (promises.size() - nFinal + 1);
-            nFulfill.value = Math.min(nFinal, promises.size());
-
-            if (nFulfill.value == 0) {
-                resolve.accept(results);
-                return;
             }
+        });
 
-            promises.stream().forEach(p -> {
-                helper.toPromise(p).then(handleResolve, handleReject);
-            });
+        return new TrustedPromise<>(resolver, helper);
+    }
 
-        }, helper);
+    /**
+     * Retain the joined handler of every input, so they can be released together
+     *
+     * @param promises promises or values
+     * @param <T>      type of promises
+     * @return the retained handlers
+     */
+    private <T> RetainedHandlers<T> retain(List<? extends Thenable<T>> promises) {
+        List<Handler<T>> handlers = new ArrayList<>(promises.size());
+        promises.forEach(p -> handlers.add(helper.toPromise(p)._handler.join()));
+        return new RetainedHandlers<>(handlers);
     }
 
     /**
@@ -147,6 +171,69 @@ public class ArrayHelper {
 
     }
 
+    /**
+     * Apply f to the value of each input promise, keeping at most maxConcurrency mapped promises
+     * pending at once.  Inputs are taken from the iterator only as earlier mappings settle, so the
+     * inputs and the mapped promises are never all held at once.
+     * <p>
+     * The iterator is only used by one thread at a time.  The returned promise rejects with the first
+     * rejection, after which no further inputs are taken.  The same goes for cancelling it.
+     *
+     * @param inputs         iterator of promises or values
+     * @param f              function run when an input promise fulfills
+     * @param maxConcurrency max number of pending mapped promises
+     * @param <T>            type of input promises
+     * @param <U>            type of mapped values
+     * @return promise for the list of mapped values, in input order
+     */
+    public <T, U> Promise<List<U>> map(Iterator<? extends Thenable<T>> inputs, Function<T, ? extends Thenable<U>> f, int maxConcurrency) {
+
+        if (inputs == null) {
+            throw new IllegalArgumentException("inputs cannot be null");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be greater than 0");
+        }
+
+        BoundedMap<T, U> map = new BoundedMap<>(inputs, f, maxConcurrency);
+        map.drain();
+        return new TrustedPromise<>(map.resolver, helper);
+
+    }
+
+    /**
+     * Hand the outcome state of each input promise to consumer as it settles, in completion order.
+     * Outcomes are not collected, so each one can be released as soon as it has been consumed.
+     * <p>
+     * The consumer is called by one thread at a time, even when inputs settle on different threads.
+     * If it throws, the returned promise rejects and no further outcomes are delivered.
+     *
+     * @param promises list of promises
+     * @param consumer called with each outcome state and its index in the input
+     * @param <T>      type of promises
+     * @return promise that fulfills once every outcome has been consumed
+     */
+    public <T> Promise<Void> onEachSettled(List<? extends Thenable<T>> promises, ObjIntConsumer<State<T>> consumer) {
+
+        if (promises == null) {
+            throw new IllegalArgumentException("promises cannot be null");
+        }
+
+        EachSettled<T> each = new EachSettled<>(promises.size(), consumer);
+
+        for (int i = 0; i < promises.size(); i++) {
+            int index = i;
+            // Chain on the promise's own handler, which defers callbacks for already settled inputs
+            helper.toPromise(promises.get(i))._handler.chain(
+                    x -> each.settled(index, new State<>(HandlerState.FULFILLED, x)),
+                    t -> each.settled(index, new State<>(HandlerState.REJECTED, t)));
+        }
+
+        each.drain();
+        return new TrustedPromise<>(each.resolver, helper);
+
+    }
+
     /**
      * Return a promise that will always fulfill with an array containing
      * the outcome states of all input promises.  The returned promise
@@ -186,6 +273,46 @@ public class ArrayHelper {
 
     }
 
+    /**
+     * Reduce with an associative function by combining neighbouring ranges of the input pairwise in
+     * a balanced tree.  Each pair is combined as soon as both sides have settled, so inputs that
+     * settle out of order are combined while earlier inputs are still pending, and at most
+     * log2(n) calls to f remain after the last input settles.
+     * <p>
+     * f is always called with the left range's value first, so it must be associative but need not
+     * be commutative.
+     *
+     * @param promises list of promises or values
+     * @param f        associative reduce function
+     * @param <T>      type of promises
+     * @return promise for the reduced value, rejects if the list is empty
+     */
+    public <T> Promise<T> reduceAssociative(List<? extends Thenable<T>> promises, BiFunction<T, T, ? extends Thenable<T>> f) {
+
+        if (promises.isEmpty()) {
+            return helper.reject(new IllegalArgumentException("Cannot reduce an empty list without an initial value"));
+        }
+        return reduceRange(promises, f, 0, promises.size());
+
+    }
+
+    private <T> TrustedPromise<T> reduceRange(List<? extends Thenable<T>> promises, BiFunction<T, T, ? extends Thenable<T>> f, int from, int to) {
+
+        if (to - from == 1) {
+            return helper.toPromise(promises.get(from));
+        }
+
+        int mid = (from + to) >>> 1;
+        TrustedPromise<T> left = reduceRange(promises, f, from, mid);
+        TrustedPromise<T> right = reduceRange(promises, f, mid, to);
+
+        // Attach to both sides now so a rejection on either side rejects the range
+        //noinspection unchecked
+        return (TrustedPromise<T>) helper.all(Arrays.asList(left, right))
+                .then(pair -> f.apply(pair.get(0), pair.get(1)));
+
+    }
+
     public <T, U> Promise<U> reduce(List<? extends Thenable<T>> promises, BiFunction<U, T, ? extends Thenable<U>> f, Thenable<U> initialValue) {
 
         //noinspection unchecked
@@ -203,4 +330,147 @@ public class ArrayHelper {
 
     }
 
+    /**
+     * State of a bounded map.  Completions from any thread are queued, and whichever thread wins the
+     * work counter drains them and takes the next inputs, so the results and the iterator are only
+     * touched by one thread at a time.
+     */
+    private class BoundedMap<T, U> {
+
+        private final Iterator<? extends Thenable<T>> inputs;
+        private final Function<T, ? extends Thenable<U>> f;
+        private final int maxConcurrency;
+        private final DeferredHandler<List<U>> resolver;
+        private final Queue<Indexed<U>> completed = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private final List<U> results = new ArrayList<>();
+        private int inFlight;
+        private volatile boolean finished;
+
+        private BoundedMap(Iterator<? extends Thenable<T>> inputs, Function<T, ? extends Thenable<U>> f, int maxConcurrency) {
+            this.inputs = inputs;
+            this.f = f;
+            this.maxConcurrency = maxConcurrency;
+            this.resolver = new DeferredHandler<>(helper, null);
+            // Cancelling the result stops taking inputs
+            this.resolver.onCancel(() -> finished = true);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (finished) {
+                    completed.clear();
+                    continue;
+                }
+                try {
+                    step();
+                } catch (Throwable t) {
+                    reject(t);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void step() {
+            Indexed<U> m;
+            while ((m = completed.poll()) != null) {
+                results.set(m.index, m.value);
+                inFlight--;
+            }
+
+            while (!finished && inFlight < maxConcurrency && inputs.hasNext()) {
+                int index = results.size();
+                results.add(null);
+                inFlight++;
+
+                @SuppressWarnings("unchecked")
+                TrustedPromise<U> p = (TrustedPromise<U>) helper.toPromise(inputs.next()).then(f);
+                p._handler.join().chain(value -> {
+                    completed.add(new Indexed<>(index, value));
+                    drain();
+                }, this::reject);
+            }
+
+            if (inFlight == 0 && !finished) {
+                finished = true;
+                resolver.resolve(results);
+            }
+        }
+
+        private void reject(Throwable t) {
+            finished = true;
+            resolver.reject(t);
+        }
+
+    }
+
+    /**
+     * State of an onEachSettled call, queues outcomes from any thread and hands them to the
+     * consumer from whichever thread wins the work counter.
+     */
+    private class EachSettled<T> {
+
+        private final int count;
+        private final ObjIntConsumer<State<T>> consumer;
+        private final DeferredHandler<Void> resolver;
+        private final Queue<Indexed<State<T>>> settled = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private int consumed;
+        private boolean finished;
+
+        private EachSettled(int count, ObjIntConsumer<State<T>> consumer) {
+            this.count = count;
+            this.consumer = consumer;
+            this.resolver = new DeferredHandler<>(helper, null);
+        }
+
+        private void settled(int index, State<T> state) {
+            settled.add(new Indexed<>(index, state));
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                Indexed<State<T>> s;
+                while ((s = settled.poll()) != null) {
+                    if (finished) {
+                        continue;
+                    }
+                    try {
+                        consumer.accept(s.value, s.index);
+                    } catch (Throwable t) {
+                        finished = true;
+                        resolver.reject(t);
+                        continue;
+                    }
+                    consumed++;
+                }
+                if (!finished && consumed == count) {
+                    finished = true;
+                    resolver.resolve((Void) null);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+    }
+
+    private static class Indexed<U> {
+
+        private final int index;
+        private final U value;
+
+        private Indexed(int index, U value) {
+            this.index = index;
+            this.value = value;
+        }
+
+    }
+
 }
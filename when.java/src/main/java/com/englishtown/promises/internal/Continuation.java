@@ -1,22 +1,78 @@
 package com.englishtown.promises.internal;
 
+import com.englishtown.promises.Priority;
 import com.englishtown.promises.Thenable;
+import com.englishtown.promises.internal.handlers.Handler;
 
-import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * A promise continuation
+ * <p>
+ * The continuation is also the task that runs it once its source handler settles, so attaching a
+ * callback allocates no separate task or resolve callback.  By default the callback result resolves
+ * the target handler, override {@link #resolve(Thenable)} to consume it differently.
  */
-public class Continuation<T, U> {
+public class Continuation<T, U> implements Runnable {
     // TODO: Change to fluid setters
 
+    private static final Function<Object, Thenable<Object>> IGNORE = x -> null;
+
     public Function<T, ? extends Thenable<U>> fulfilled;
 
     public Function<Throwable, ? extends Thenable<U>> rejected;
 
-    public Consumer<Thenable<U>> resolve;
+    public Handler<U> target;
 
     public Object context;
 
+    public Priority priority = Priority.NORMAL;
+
+    /**
+     * Next continuation waiting on the same pending handler, a continuation waits on at most one
+     */
+    public Continuation<?, ?> next;
+
+    private Handler<T> source;
+
+    /**
+     * Consume the result of the fulfilled or rejected callback
+     *
+     * @param x callback result
+     */
+    public void resolve(Thenable<U> x) {
+        target.resolve(x);
+    }
+
+    /**
+     * Drop the callbacks, and everything they capture, of a continuation whose consumer no longer
+     * needs it but which may still wait on a handler that never settles.  The continuation then
+     * consumes the outcome without doing anything, so a rejection still counts as handled.
+     * <p>
+     * Only for continuations that ignore the callback results, a callback already being run may
+     * still finish.
+     */
+    @SuppressWarnings("unchecked")
+    public void detach() {
+        this.fulfilled = (Function<T, ? extends Thenable<U>>) (Function<?, ?>) IGNORE;
+        this.rejected = (Function<Throwable, ? extends Thenable<U>>) (Function<?, ?>) IGNORE;
+        this.context = null;
+    }
+
+    /**
+     * Set the handler to run against when this continuation is scheduled
+     *
+     * @param source source handler
+     * @return this continuation
+     */
+    public Continuation<T, U> at(Handler<T> source) {
+        this.source = source;
+        return this;
+    }
+
+    @Override
+    public void run() {
+        this.source.join().when(this);
+    }
+
 }
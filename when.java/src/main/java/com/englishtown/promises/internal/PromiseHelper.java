@@ -1,13 +1,21 @@
 package com.englishtown.promises.internal;
 
 import com.englishtown.promises.*;
+import com.englishtown.promises.exceptions.TimeoutException;
+import com.englishtown.promises.impl.HashedWheelTimer;
 import com.englishtown.promises.internal.handlers.*;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.function.BiConsumer;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -15,15 +23,22 @@ import java.util.function.Function;
  */
 public class PromiseHelper {
 
+    private static final Timer.Timeout CANCELLED = () -> false;
+
+    private final Environment environment;
     private final Scheduler scheduler;
     private final Context context;
     private final Reporter reporter;
+    private final int maxEagerDepth;
+    private final ThreadLocal<int[]> eagerDepth = new ThreadLocal<>();
 
     private final Promise<Object> foreverPendingPromise;
 
     @Inject
     public PromiseHelper(Environment environment, Context context, Reporter reporter) {
+        this.environment = environment;
         this.scheduler = environment.getScheduler();
+        this.maxEagerDepth = environment.getMaxEagerDepth();
         this.context = context;
         this.reporter = reporter;
 
@@ -70,6 +85,39 @@ public class PromiseHelper {
     }
     // TODO: need both resolve and toPromise?
 
+    /**
+     * Return a trusted promise that settles directly when a completion stage completes.  A stage
+     * that completes with a {@link CompletionException} rejects with its cause, and a cancelled
+     * stage rejects with its {@link java.util.concurrent.CancellationException}.  Cancelling the
+     * promise cancels the stage, if it supports {@link CompletionStage#toCompletableFuture()}.
+     *
+     * @param stage completion stage to follow
+     * @param <T>   type of stage
+     * @return {Promise} promise
+     */
+    public <T> TrustedPromise<T> fromCompletionStage(CompletionStage<T> stage) {
+        if (stage == null) {
+            throw new IllegalArgumentException("stage cannot be null");
+        }
+
+        DeferredHandler<T> h = new DeferredHandler<>(this, null);
+        stage.whenComplete((x, t) -> {
+            if (t == null) {
+                h.resolve(x);
+            } else {
+                h.reject(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
+        h.onCancel(() -> {
+            try {
+                stage.toCompletableFuture().cancel(false);
+            } catch (UnsupportedOperationException e) {
+                // The stage can't be cancelled, let it run
+            }
+        });
+        return new TrustedPromise<>(h, this);
+    }
+
     /**
      * Return a rejected promise with x as its reason (x is used verbatim)
      *
@@ -131,6 +179,9 @@ public class PromiseHelper {
      */
     private <T> Handler<T> getHandlerUntrusted(Thenable<T> x) {
         try {
+            if (x != null && environment.isTrusted(x)) {
+                return getHandlerTrusted(x);
+            }
             return (x != null) ? new ThenableHandler<>(x, this) : new FulfilledHandler<>(null, this);
 //            var untrustedThen = x.then;
 //            return typeof untrustedThen === 'function'
@@ -141,6 +192,18 @@ public class PromiseHelper {
         }
     }
 
+    /**
+     * Assimilate a trusted thenable right away instead of from a scheduled task
+     *
+     * @param x a trusted thenable
+     * @return the settled handler if x called back synchronously, otherwise a pending handler
+     */
+    private <T> Handler<T> getHandlerTrusted(Thenable<T> x) {
+        DeferredHandler<T> h = new DeferredHandler<>(this, null);
+        new AssimilateTask<T, Object>(x, h).run();
+        return h.join();
+    }
+
     /**
      * Return f.call(thisArg, x), or if it throws return a rejected promise for
      * the thrown exception
@@ -182,6 +245,76 @@ public class PromiseHelper {
         return this.scheduler;
     }
 
+    /**
+     * @return the environment's current timer, or the shared default timer if the environment has none
+     */
+    public Timer getTimer() {
+        Timer timer = this.environment.getTimer();
+        return timer != null ? timer : HashedWheelTimer.getDefault();
+    }
+
+    /**
+     * Get a helper that shares this helper's context and reporter but runs tasks on another scheduler
+     *
+     * @param scheduler the scheduler to run tasks on
+     * @return this helper if it already uses scheduler, otherwise a new helper
+     */
+    public PromiseHelper withScheduler(Scheduler scheduler) {
+        if (scheduler == this.scheduler) {
+            return this;
+        }
+
+        Environment parent = this.environment;
+        Environment environment = new Environment() {
+            @Override
+            public Scheduler getScheduler() {
+                return scheduler;
+            }
+
+            @Override
+            public int getMaxEagerDepth() {
+                return parent.getMaxEagerDepth();
+            }
+
+            @Override
+            public boolean isTrusted(Thenable<?> x) {
+                return parent.isTrusted(x);
+            }
+
+            @Override
+            public Timer getTimer() {
+                return parent.getTimer();
+            }
+        };
+
+        return new PromiseHelper(environment, context, reporter);
+    }
+
+    /**
+     * Enter an eager callback if eager mode is enabled and the current thread is below the max depth.
+     * Must be paired with {@link #exitEager()} when it returns true.
+     *
+     * @return true if the callback may run synchronously
+     */
+    boolean enterEager() {
+        if (maxEagerDepth == 0) {
+            return false;
+        }
+        int[] depth = eagerDepth.get();
+        if (depth == null) {
+            eagerDepth.set(depth = new int[1]);
+        }
+        if (depth[0] >= maxEagerDepth) {
+            return false;
+        }
+        ++depth[0];
+        return true;
+    }
+
+    void exitEager() {
+        --eagerDepth.get()[0];
+    }
+
     public Context getContext() {
         return this.context;
     }
@@ -194,36 +327,35 @@ public class PromiseHelper {
      * Return a promise that will fulfill when all promises in the
      * input array have fulfilled, or will reject when one of the
      * promises rejects.
+     * <p>
+     * Safe when the input promises settle on different threads: results are written to a
+     * pre-sized array, which is copied into a new list once the atomic pending count reaches zero.
      *
      * @param promises array of promises
      * @param <T>      type of promises
-     * @return {Promise} promise for array of fulfillment values
+     * @return {Promise} promise for a modifiable list of fulfillment values
      */
+    @SuppressWarnings("unchecked")
     public <T> Promise<List<T>> all(List<? extends Thenable<T>> promises) {
 
-        DeferredHandler<List<T>> resolver = new DeferredHandler<>(this, null);
-        ValueHolder<Integer> pending = new ValueHolder<>(promises == null ? 0 : promises.size());
-        List<T> results = new ArrayList<>(pending.value);
-
-        BiConsumer<DeferredHandler<T>, Integer> resolveOne = (handler, i) -> {
-            handler.map((x) -> {
-                results.set(i, x);
-                if (--(pending.value) == 0) {
-                    resolver.become(new FulfilledHandler<>(results, this));
-                }
-            }, resolver);
-        };
-
         if (promises == null) {
             throw new IllegalArgumentException("promises cannot be null");
         }
 
-        for (int i = 0; i < promises.size(); ++i) {
+        int n = promises.size();
+        DeferredHandler<List<T>> resolver = new DeferredHandler<>(this, null);
+        Object[] results = new Object[n];
+        // One extra count held by the loop below, so a promise settling on another
+        // thread can't complete the results before every input has been visited
+        AtomicInteger pending = new AtomicInteger(n + 1);
+        Consumer<Throwable> reject = resolver::reject;
+        List<Handler<T>> inputs = new ArrayList<>();
+
+        for (int i = 0; i < n; ++i) {
             Thenable<T> x = promises.get(i);
-            results.add(i, null);
 
             if (x == null) {
-                --pending.value;
+                pending.decrementAndGet();
                 continue;
             }
 
@@ -233,38 +365,33 @@ public class PromiseHelper {
 
             HandlerState s = h.state();
 
-            switch (s) {
-                case PENDING:
-                    resolveOne.accept((DeferredHandler<T>) h, i);
-                    break;
-
-                case FULFILLED:
-                    // TODO: Use inspect instead?
-                    results.set(i, ((FulfilledHandler<T>) h).getValue());
-                    --pending.value;
-                    break;
-
-                case REJECTED:
-                    // TODO: finish all() rejected.  Better approach?  inspect()?
-                    resolver.reject(((RejectedHandler<T>) h).getValue());
-//                resolver.become(h);
-                    // Break the for loop
-                    i = promises.size();
-                    break;
-
+            if (s == HandlerState.PENDING) {
+                int index = i;
+                inputs.add(h);
+                h.retain();
+                h.attach(value -> {
+                    results[index] = value;
+                    if (pending.decrementAndGet() == 0) {
+                        resolver.become(new FulfilledHandler<>(new ArrayList<>((List<T>) Arrays.asList(results)), this));
+                    }
+                }, reject);
+
+            } else if (s == HandlerState.FULFILLED) {
+                results[i] = ((FulfilledHandler<T>) h).getValue();
+                pending.decrementAndGet();
+
+            } else {
+                // Short-circuit, the rest of the input can't change the outcome
+                resolver.reject(((RejectedHandler<T>) h).getValue());
+                return new TrustedPromise<>(resolver, this);
             }
-
-            // TODO: Support values or only promises?
-//            if (helper.maybeThenable(x)) {
-//
-//            } else {
-//                results[i] = x;
-//                --pending;
-//            }
         }
 
-        if (pending.value == 0) {
-            resolver.become(new FulfilledHandler<>(results, this));
+        if (pending.decrementAndGet() == 0) {
+            resolver.become(new FulfilledHandler<>(new ArrayList<>((List<T>) Arrays.asList(results)), this));
+        } else {
+            // Cancelling the result gives up on the inputs still pending, a rejection keeps them
+            resolver.onCancel(() -> inputs.forEach(Handler::release));
         }
 
         return new TrustedPromise<>(resolver, this);
@@ -278,6 +405,9 @@ public class PromiseHelper {
      * must return a promise that is pending forever.  This implementation
      * returns a singleton forever-pending promise, the same singleton that is
      * returned by Promise.never(), thus can be checked with ===
+     * <p>
+     * Once the race settles it gives up on the losing inputs, as described for
+     * {@link Promise#cancel()}, and no longer holds on to them.
      *
      * @param promises array of promises to race
      * @param <T>      type of promises
@@ -293,14 +423,98 @@ public class PromiseHelper {
         }
 
         DeferredHandler<T> h = new DeferredHandler<>(this, null);
+        List<Handler<T>> inputs = new ArrayList<>(promises.size());
 
         for (int i = 0; i < promises.size(); ++i) {
             Thenable<T> x = promises.get(i);
             if (x != null) {
-                this.<T>getHandler(x).chain(h::resolve, h::reject);
+                inputs.add(this.<T>getHandler(x).join());
             }
         }
 
+        // Every input is retained before any can settle the race, so the losers are released
+        // together once there is a winner, or when the race itself is cancelled.  Releasing also
+        // detaches from losers that never settle, so they don't keep the race reachable.
+        RetainedHandlers<T> retained = new RetainedHandlers<>(inputs);
+        h.onCancel(retained::release);
+
+        retained.attach(x -> {
+            h.resolve(x);
+            retained.release();
+        }, t -> {
+            h.reject(t);
+            retained.release();
+        });
+
+        return new TrustedPromise<>(h, this);
+    }
+
+    /**
+     * Return a promise that fulfills with the value of x ms milliseconds after x fulfills.  A
+     * rejection is passed on without a delay.
+     *
+     * @param x   thenable to follow
+     * @param ms  delay in milliseconds
+     * @param <T> type of thenable and promise to be returned
+     * @return a new promise
+     */
+    public <T> Promise<T> delay(Thenable<T> x, long ms) {
+        Timer timer = getTimer();
+        Handler<T> parent = this.<T>getHandler(x).join();
+        DeferredHandler<T> h = new DeferredHandler<>(this, parent.context);
+
+        // Holds the wheel entry once scheduled, or CANCELLED if cancelled first
+        AtomicReference<Timer.Timeout> scheduled = new AtomicReference<>();
+
+        parent.retain();
+        h.onCancel(() -> {
+            Timer.Timeout timeout = scheduled.getAndSet(CANCELLED);
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            parent.release();
+        });
+        parent.attach(value -> {
+            Timer.Timeout timeout = timer.schedule(() -> h.resolve(value), ms, TimeUnit.MILLISECONDS);
+            if (!scheduled.compareAndSet(null, timeout)) {
+                timeout.cancel();
+            }
+        }, h::reject);
+        return new TrustedPromise<>(h, this);
+    }
+
+    /**
+     * Return a promise that follows x, but rejects with a {@link TimeoutException} if x has not
+     * settled within ms milliseconds.
+     *
+     * @param x   thenable to follow
+     * @param ms  timeout in milliseconds
+     * @param <T> type of thenable and promise to be returned
+     * @return a promise
+     */
+    public <T> Promise<T> timeout(Thenable<T> x, long ms) {
+        Handler<T> parent = this.<T>getHandler(x).join();
+        if (parent.state() != HandlerState.PENDING) {
+            // Optimization: already settled, result will not change
+            return resolve(x);
+        }
+
+        DeferredHandler<T> h = new DeferredHandler<>(this, parent.context);
+        Timer.Timeout timeout = getTimer().schedule(
+                () -> h.reject(new TimeoutException("Timed out after " + ms + " ms")), ms, TimeUnit.MILLISECONDS);
+
+        parent.retain();
+        h.onCancel(() -> {
+            timeout.cancel();
+            parent.release();
+        });
+        parent.attach(value -> {
+            timeout.cancel();
+            h.resolve(value);
+        }, t -> {
+            timeout.cancel();
+            h.reject(t);
+        });
         return new TrustedPromise<>(h, this);
     }
 
@@ -0,0 +1,70 @@
+package com.englishtown.promises.internal;
+
+import com.englishtown.promises.internal.handlers.Handler;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Input handlers an aggregate promise has registered interest in and attached to.  Releasing them,
+ * at most once, gives up on the inputs as described for
+ * {@link com.englishtown.promises.Promise#cancel()} and detaches the aggregate's continuations, so
+ * the aggregate's state can be collected even if an input never settles.
+ */
+class RetainedHandlers<T> {
+
+    private final AtomicReference<List<Handler<T>>> handlers;
+    private final AtomicReferenceArray<Continuation<T, Object>> continuations;
+
+    /**
+     * @param handlers joined input handlers, retained here
+     */
+    RetainedHandlers(List<Handler<T>> handlers) {
+        handlers.forEach(Handler::retain);
+        this.handlers = new AtomicReference<>(handlers);
+        this.continuations = new AtomicReferenceArray<>(handlers.size());
+    }
+
+    /**
+     * Attach the callbacks to every handler, stopping early if released by one of them
+     *
+     * @param fulfilled called with a fulfillment value
+     * @param rejected  called with a rejection reason
+     */
+    void attach(Consumer<T> fulfilled, Consumer<Throwable> rejected) {
+        List<Handler<T>> list = handlers.get();
+        for (int i = 0; list != null && i < list.size(); i++) {
+            continuations.set(i, list.get(i).attach(fulfilled, rejected));
+            list = handlers.get();
+        }
+
+        // Released while attaching, the last continuation may have been missed
+        if (list == null) {
+            detach();
+        }
+    }
+
+    /**
+     * Detach from and release every handler, if not already released
+     */
+    void release() {
+        List<Handler<T>> list = handlers.getAndSet(null);
+        if (list != null) {
+            // Detach first, so cancelled inputs don't call back
+            detach();
+            list.forEach(Handler::release);
+        }
+    }
+
+    private void detach() {
+        for (int i = 0; i < continuations.length(); i++) {
+            Continuation<T, Object> c = continuations.getAndSet(i, null);
+            if (c != null) {
+                c.detach();
+            }
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.englishtown.promises.internal;
 
+import com.englishtown.promises.CancellablePromiseResolver;
+import com.englishtown.promises.Priority;
 import com.englishtown.promises.Promise;
 import com.englishtown.promises.PromiseResolver;
 import com.englishtown.promises.State;
@@ -8,11 +10,13 @@ import com.englishtown.promises.exceptions.RejectException;
 import com.englishtown.promises.internal.handlers.DeferredHandler;
 import com.englishtown.promises.internal.handlers.Handler;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static com.englishtown.promises.HandlerState.FULFILLED;
+import static com.englishtown.promises.HandlerState.PENDING;
 
 /**
  * A trusted {@link com.englishtown.promises.Promise}
@@ -21,6 +25,7 @@ public class TrustedPromise<T> implements Promise<T> {
 
     public final Handler<T> _handler;
     private final PromiseHelper helper;
+    private final Priority priority;
 
     /**
      * Create a promise whose fate is determined by handler
@@ -29,8 +34,20 @@ public class TrustedPromise<T> implements Promise<T> {
      * @param helper  promise helper methods
      */
     public TrustedPromise(Handler<T> handler, PromiseHelper helper) {
+        this(handler, helper, Priority.NORMAL);
+    }
+
+    /**
+     * Create a promise whose fate is determined by handler
+     *
+     * @param handler  handler used to fulfill/reject
+     * @param helper   promise helper methods
+     * @param priority scheduler lane for continuations of this promise
+     */
+    public TrustedPromise(Handler<T> handler, PromiseHelper helper, Priority priority) {
         this._handler = handler;
         this.helper = helper;
+        this.priority = priority;
     }
 
     /**
@@ -41,9 +58,29 @@ public class TrustedPromise<T> implements Promise<T> {
      */
     public TrustedPromise(PromiseResolver<T> resolver, PromiseHelper helper) {
         this.helper = helper;
+        this.priority = Priority.NORMAL;
         this._handler = init(resolver);
     }
 
+    /**
+     * Create a promise whose fate is determined by the resolver, which may register a cancel hook
+     *
+     * @param resolver a promise resolver to fulfill/reject
+     * @param helper   promise helper methods
+     */
+    public TrustedPromise(CancellablePromiseResolver<T> resolver, PromiseHelper helper) {
+        this.helper = helper;
+        this.priority = Priority.NORMAL;
+
+        DeferredHandler<T> handler = new DeferredHandler<>(helper, null);
+        try {
+            resolver.resolve(handler::resolve, handler::reject, handler::onCancel);
+        } catch (Throwable e) {
+            handler.reject(e);
+        }
+        this._handler = handler;
+    }
+
     /**
      * Run the supplied resolver
      *
@@ -115,19 +152,33 @@ public class TrustedPromise<T> implements Promise<T> {
         if ((onFulfilled == null) && (parent.join().state() == FULFILLED)) {
             // Short circuit: value will not change, simply share handler
             //noinspection unchecked
-            return new TrustedPromise<>((Handler<U>) parent, helper); // TODO: Check this cast
+            return new TrustedPromise<>((Handler<U>) parent, helper, priority); // TODO: Check this cast
+        }
+
+        Handler<T> settled = parent.join();
+        if (settled.state() != PENDING && helper.enterEager()) {
+            try {
+                return this.thenEager(settled, onFulfilled, onRejected);
+            } finally {
+                helper.exitEager();
+            }
         }
 
         TrustedPromise<U> p = this._beget();
-        Handler<U> child = p._handler;
+        DeferredHandler<U> child = (DeferredHandler<U>) p._handler;
+
+        // Cancelling the child gives up its interest in the parent
+        settled.retain();
+        child.onCancel(settled::release);
 
         Continuation<T, U> cont = new Continuation<>();
-        cont.resolve = child::resolve;
+        cont.target = child;
 //        cont.notify = child::notify;
         cont.context = child;
 //        cont.receiver = parent.receiver;
         cont.fulfilled = onFulfilled;
         cont.rejected = onRejected;
+        cont.priority = priority;
 //        cont.progress = arguments.length > 2 ? arguments[2] : null;
 
         parent.when(cont);
@@ -136,14 +187,43 @@ public class TrustedPromise<T> implements Promise<T> {
     }
 
     /**
-     * Creates a new, pending promise of the same type as this promise
+     * Eager fast path: run the callback for an already settled handler synchronously and return a
+     * promise for its result, without a child handler or a scheduler round trip.
+     *
+     * @param settled     fulfilled or rejected handler
+     * @param onFulfilled fulfillment handler
+     * @param onRejected  rejection handler
+     * @return promise for the callback result
+     */
+    private <U> Promise<U> thenEager(Handler<T> settled, Function<T, ? extends Thenable<U>> onFulfilled, Function<Throwable, ? extends Thenable<U>> onRejected) {
+        ValueHolder<Thenable<U>> result = new ValueHolder<>(null);
+
+        Continuation<T, U> cont = new Continuation<T, U>() {
+            @Override
+            public void resolve(Thenable<U> x) {
+                result.value = x;
+            }
+        };
+        cont.context = this;
+        cont.fulfilled = onFulfilled;
+        cont.rejected = onRejected;
+        cont.priority = priority;
+
+        // Fulfilled and rejected handlers run continuations synchronously
+        settled.when(cont);
+
+        return helper.resolve(result.value).withPriority(priority);
+    }
+
+    /**
+     * Creates a new, pending promise of the same type and priority as this promise
      *
      * @return {Promise}
      */
     private <U> TrustedPromise<U> _beget() {
         Handler<T> parent = this._handler;
-        DeferredHandler<U> child = new DeferredHandler<>(helper, parent.join().context);
-        return new TrustedPromise<>(child, helper);
+        DeferredHandler<U> child = new DeferredHandler<>(helper, parent.join().context, priority);
+        return new TrustedPromise<>(child, helper, priority);
     }
 
     /**
@@ -168,6 +248,21 @@ public class TrustedPromise<T> implements Promise<T> {
         return _handler.inspect();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Promise<T> withPriority(Priority priority) {
+        if (priority == null) {
+            throw new IllegalArgumentException("priority cannot be null");
+        }
+        return priority == this.priority ? this : new TrustedPromise<>(_handler, helper, priority);
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -175,18 +270,25 @@ public class TrustedPromise<T> implements Promise<T> {
     public <U> void done(Function<T, ? extends Thenable<U>> onResult, Function<Throwable, ? extends Thenable<U>> onError) {
         Handler<T> h = this._handler;
 
-        Continuation<T, U> cont = new Continuation<>();
-        cont.resolve = this::_maybeFatal;
+        Continuation<T, U> cont = new Continuation<T, U>() {
+            @Override
+            public void resolve(Thenable<U> x) {
+                _maybeFatal(x);
+            }
+        };
 //        cont.notify = noop;
         cont.context = this;
         cont.fulfilled = onResult;
         cont.rejected = onError;
+        cont.priority = priority;
 //        cont.progress = null;
 
 //        h.when({ resolve: this._maybeFatal, notify: noop, context: this,
 //                receiver: h.receiver, fulfilled: onResult, rejected: onError,
 //                progress: void 0 });
 
+        // Nothing can cancel the end of a chain out from under done()
+        h.join().retain();
         h.when(cont);
     }
 
@@ -301,6 +403,35 @@ public class TrustedPromise<T> implements Promise<T> {
         throw new RejectException("catch predicate must be a function");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Handler<T> h = this._handler.join();
+
+        // Settled handlers call back synchronously, pending ones when they settle
+        h.retain();
+        h.attach(future::complete, future::completeExceptionally);
+
+        // Cancelling the future gives up its interest in this promise
+        future.whenComplete((x, t) -> {
+            if (future.isCancelled()) {
+                h.release();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean cancel() {
+        return this._handler.join().cancel();
+    }
+
     @Override
     public <U, V> Promise<V> fold(BiFunction<U, T, ? extends Thenable<V>> fn, Thenable<U> arg) {
         TrustedPromise<V> promise = this._beget();
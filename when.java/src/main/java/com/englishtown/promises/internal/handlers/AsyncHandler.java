@@ -1,7 +1,6 @@
 package com.englishtown.promises.internal.handlers;
 
 import com.englishtown.promises.internal.Continuation;
-import com.englishtown.promises.internal.ContinuationTask;
 import com.englishtown.promises.internal.PromiseHelper;
 
 /**
@@ -15,7 +14,7 @@ public class AsyncHandler<T> extends DelegateHandler<T> {
 
     @Override
     public void when(Continuation<T, ?> continuation) {
-        helper.getScheduler().enqueue(new ContinuationTask<>(continuation, this.join()));
+        helper.getScheduler().enqueue(continuation.at(this.join()), continuation.priority);
     }
 
 }
@@ -1,36 +1,93 @@
 package com.englishtown.promises.internal.handlers;
 
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Priority;
 import com.englishtown.promises.State;
 import com.englishtown.promises.Thenable;
 import com.englishtown.promises.internal.Continuation;
-import com.englishtown.promises.internal.ContinuationTask;
 import com.englishtown.promises.internal.PromiseHelper;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Handler that manages a queue of consumers waiting on a pending promise
+ * <p>
+ * Consumers are kept without locking in a single word: empty, the newest continuation of a CAS-linked
+ * stack, or a done marker once they have been handed to the resolved handler.  The stack is linked
+ * through the continuations themselves, so waiting consumers cost no allocation beyond the
+ * continuation.  The delegate handler is set by CAS, so the resolved handler is safely published to
+ * consumers attaching from other threads.
+ * <p>
+ * Resolving with a pending deferred reverses the link: the pending deferred is linked to this
+ * handler's root and hands its consumers over, and its own resolution is later forwarded to the
+ * root.  Recursive loops such as {@code p.then(x -> loop(x))} then link every step straight to the
+ * outermost promise instead of building a chain, so they run in constant memory.  Only a deferred
+ * that nothing else waits on and that would be cancelled along with the root is linked this way.
+ * A root resolved with any other pending deferred follows it through a single continuation, so
+ * cancelling the root does not reject the deferred it follows.
+ * <p>
+ * Cancellation is cooperative.  Consumers that can give up register interest, and when the last of
+ * them releases it a pending handler with a cancel hook rejects with a {@link CancellationException}
+ * and runs the hook, which passes the cancellation upstream.  Only derived promises and sources that
+ * opted in have a hook, see {@link com.englishtown.promises.Promise#cancel()}.  The hook runs as a
+ * scheduler task, so cancelling a long chain does not nest on the stack.  A linked handler hands its
+ * interest and hook to its root.
  */
 public class DeferredHandler<T> extends Handler<T> implements Runnable {
 
-    private boolean resolved;
-    private List<Continuation<T, ?>> consumers;
-    private final Object lock = new Object();
+    private static final Object DONE = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Handler, Handler> HANDLER =
+            AtomicReferenceFieldUpdater.newUpdater(Handler.class, Handler.class, "handler");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DeferredHandler, Object> CONSUMERS =
+            AtomicReferenceFieldUpdater.newUpdater(DeferredHandler.class, Object.class, "consumers");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DeferredHandler, Priority> PRIORITY =
+            AtomicReferenceFieldUpdater.newUpdater(DeferredHandler.class, Priority.class, "priority");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DeferredHandler> RESOLVED =
+            AtomicIntegerFieldUpdater.newUpdater(DeferredHandler.class, "resolved");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DeferredHandler> INTEREST =
+            AtomicIntegerFieldUpdater.newUpdater(DeferredHandler.class, "interest");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DeferredHandler, Runnable> ON_CANCEL =
+            AtomicReferenceFieldUpdater.newUpdater(DeferredHandler.class, Runnable.class, "onCancel");
+
+    private volatile int resolved;
+    private volatile int interest;
+    private volatile Runnable onCancel;
+    private volatile DeferredHandler<T> following;
+    private volatile Object consumers;
+    private volatile Priority priority;
+    private Priority lane;
 
     public DeferredHandler(PromiseHelper helper, Object inheritedContext) {
+        this(helper, inheritedContext, Priority.NORMAL);
+    }
+
+    /**
+     * @param helper           promise helper methods
+     * @param inheritedContext parent context
+     * @param priority         scheduler lane used to notify consumers, raised by any higher priority consumer
+     */
+    public DeferredHandler(PromiseHelper helper, Object inheritedContext, Priority priority) {
         super(helper);
         helper.getContext().createContext(this, inheritedContext);
 
 //        this.receiver = receiver;
         this.handler = null;
-        this.resolved = false;
+        this.priority = priority;
 
     }
 
     @Override
     public State<T> inspect() {
-        return this.resolved ? this.join().inspect() : toPendingState();
+        return this.handler != null ? this.join().inspect() : toPendingState();
     }
 
     @Override
@@ -44,68 +101,374 @@ public class DeferredHandler<T> extends Handler<T> implements Runnable {
     }
 
     private void resolve0(Object x) {
-        if (!this.resolved) {
+        if (this.resolved == 0) {
             this.become(helper.getHandler(x));
         }
     }
 
     @Override
     public void reject(Throwable x) {
-        if (!this.resolved) {
+        if (this.resolved == 0) {
             this.become(new RejectedHandler<>(x, helper));
         }
     }
 
     @Override
     public Handler<T> join() {
-        if (this.resolved) {
-            Handler<T> h = this;
-            while (h.handler != null) {
-                h = h.handler;
-                if (h == this) {
-                    return this.handler = new CycleHandler<>(helper);
-                }
+        // Same path halving as Handler.join, checking both hops for a cycle back to this handler
+        Handler<T> h = this;
+        Handler<T> next;
+        while ((next = h.handler) != null) {
+            if (next == this) {
+                return this.handler = new CycleHandler<>(helper);
+            }
+            Handler<T> grand = next.handler;
+            if (grand == null) {
+                return next;
             }
-            return h;
+            if (grand == this) {
+                return this.handler = new CycleHandler<>(helper);
+            }
+            h.handler = grand;
+            h = grand;
+        }
+        return h;
+    }
+
+    /**
+     * Set the hook run when this handler is cancelled, replacing any previous hook.  Once this
+     * handler is linked the hook goes to its root instead, and once it has been cancelled the hook
+     * runs right away.
+     *
+     * @param hook cancels whatever would have resolved this handler
+     */
+    public void onCancel(Runnable hook) {
+        if (this.handler != null) {
+            this.handOff(hook);
         } else {
-            return this;
+            this.installHook(hook);
+        }
+    }
+
+    /**
+     * Replace the hook of this pending handler, and hand it off if this handler stops being pending
+     * before linkTo or settle could take it
+     *
+     * @param hook new hook, or null for none
+     */
+    private void installHook(Runnable hook) {
+        ON_CANCEL.set(this, hook);
+        if (hook != null && this.handler != null && ON_CANCEL.compareAndSet(this, hook, null)) {
+            this.handOff(hook);
+        }
+    }
+
+    /**
+     * Pass a hook registered too late on to the root this handler is linked to, or run it if this
+     * handler was cancelled
+     *
+     * @param hook cancel hook
+     */
+    @SuppressWarnings("unchecked")
+    private void handOff(Runnable hook) {
+        Handler<T> root = this.join();
+        if (root instanceof DeferredHandler) {
+            ((DeferredHandler<T>) root).onCancel(hook);
+        } else if (root.state() == HandlerState.REJECTED
+                && ((RejectedHandler<T>) root).getValue() instanceof CancellationException) {
+            helper.getScheduler().enqueue(hook);
         }
     }
 
     @Override
-    public void run() {
-        List<Continuation<T, ?>> q = this.consumers;
+    public void retain() {
+        Handler<T> h = this.join();
+        if (h != this) {
+            h.retain();
+            return;
+        }
+        this.addInterest(1);
+    }
+
+    @Override
+    public void release() {
+        Handler<T> h = this.join();
+        if (h != this) {
+            h.release();
+            return;
+        }
+        this.addInterest(-1);
+    }
+
+    /**
+     * Add to the interest count, cancelling this handler if that was the last of it
+     *
+     * @param n interest to add, negative to release
+     */
+    @SuppressWarnings("unchecked")
+    private void addInterest(int n) {
+        int interest = INTEREST.addAndGet(this, n);
+
+        if (this.handler != null) {
+            // Linked or settled meanwhile, linkTo may have moved the count before this change
+            int moved = INTEREST.getAndSet(this, 0);
+            Handler<T> root = this.join();
+            if (moved != 0 && root instanceof DeferredHandler) {
+                ((DeferredHandler<T>) root).addInterest(moved);
+            }
+        } else if (n < 0 && interest == 0 && this.onCancel != null) {
+            this.cancelPending();
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        Handler<T> h = this.join();
+        if (h != this) {
+            // Linked to a root, or already settled
+            return h.cancel();
+        }
+        return this.cancelPending();
+    }
 
+    /**
+     * Cancel this handler, unless it is no longer pending
+     *
+     * @return true if this call cancelled the handler
+     */
+    private boolean cancelPending() {
+        if (!this.settle(new RejectedHandler<>(new CancellationException(), helper), true)) {
+            // Linked or settled meanwhile, the resolver still belongs to its owner
+            return false;
+        }
+        RESOLVED.set(this, 1);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        Continuation<?, ?> head = takeConsumers();
         Handler<T> handler = this.join();
-        synchronized (lock) {
-            this.consumers = null;
+
+        while (head != null) {
+            // Unlink first, the continuation may go on to wait on another handler
+            Continuation<?, ?> next = head.next;
+            head.next = null;
+            notify(handler, (Continuation<T, ?>) head);
+            head = next;
+        }
+    }
+
+    /**
+     * Mark the consumers done and take them, oldest first
+     *
+     * @return the oldest consumer, linked to the rest
+     */
+    private Continuation<?, ?> takeConsumers() {
+        Continuation<?, ?> q = (Continuation<?, ?>) CONSUMERS.getAndSet(this, DONE);
+
+        // Reverse the stack so consumers are notified in the order they were added
+        Continuation<?, ?> head = null;
+        while (q != null) {
+            Continuation<?, ?> next = q.next;
+            q.next = head;
+            head = q;
+            q = next;
         }
+        return head;
+    }
 
-        q.forEach(handler::when);
+    private void notify(Handler<T> handler, Continuation<T, ?> continuation) {
+        if (continuation.priority == this.lane) {
+            handler.when(continuation);
+        } else {
+            // This task runs in the highest consumer lane, move the others back to their own lane
+            helper.getScheduler().enqueue(continuation.at(handler), continuation.priority);
+        }
     }
 
+    /**
+     * Resolve with a handler, unless already resolved
+     *
+     * @param handler handler to delegate to
+     */
     public void become(Handler<T> handler) {
-        this.resolved = true;
-        this.handler = handler;
-        if (this.consumers != null) {
-            helper.getScheduler().enqueue(this);
+        if (RESOLVED.compareAndSet(this, 0, 1)) {
+            this.forward(handler);
+        }
+    }
+
+    /**
+     * Settle the root this handler is linked to, or link a pending deferred target to that root
+     *
+     * @param target handler to delegate to
+     */
+    private void forward(Handler<T> target) {
+        for (; ; ) {
+            Handler<T> root = this.join();
+            if (!(root instanceof DeferredHandler)) {
+                // The root was already settled by another resolution
+                return;
+            }
+
+            DeferredHandler<T> r = (DeferredHandler<T>) root;
+            Handler<T> t = target.join();
+
+            if (t instanceof DeferredHandler) {
+                DeferredHandler<T> d = (DeferredHandler<T>) t;
+                if (d.leadsTo(r)) {
+                    t = new CycleHandler<>(helper);
+                } else if (d.isShared()) {
+                    r.follow(d);
+                    return;
+                } else if (d.linkTo(r)) {
+                    return;
+                }
+            }
+
+            // Retry if the root was settled or linked elsewhere meanwhile
+            if (t.handler == null && r.settle(t, false)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether this pending handler has to keep its own fate apart from a root that would link it.
+     * Handlers without a cancel hook must not be cancelled with the root, and handlers with interest
+     * or consumers of their own must not be cancelled for the root's consumers alone.
+     *
+     * @return true if this handler should be followed rather than linked
+     */
+    private boolean isShared() {
+        return this.onCancel == null || this.interest != 0 || this.consumers != null;
+    }
+
+    /**
+     * Make this root wait on a shared pending handler through a single continuation.  Cancelling
+     * the root then only detaches that continuation and releases its interest in the handler.
+     *
+     * @param target pending handler to follow
+     */
+    private void follow(DeferredHandler<T> target) {
+        this.following = target;
+        target.retain();
+        Continuation<T, Object> c = target.attach(
+                x -> this.forward(new FulfilledHandler<>(x, helper)),
+                e -> this.forward(new RejectedHandler<>(e, helper)));
+        this.installHook(() -> {
+            c.detach();
+            target.release();
+        });
+    }
+
+    /**
+     * Whether waiting on this pending handler would wait on a root, through the handlers each one
+     * follows
+     *
+     * @param root pending root handler
+     * @return true if following this handler from the root would be a cycle
+     */
+    @SuppressWarnings("unchecked")
+    private boolean leadsTo(DeferredHandler<T> root) {
+        Handler<T> h = this;
+        while (h instanceof DeferredHandler) {
+            if (h == root) {
+                return true;
+            }
+            DeferredHandler<T> f = ((DeferredHandler<T>) h).following;
+            if (f == null) {
+                return false;
+            }
+            h = f.join();
+        }
+        return false;
+    }
+
+    /**
+     * Link this pending handler to a root and hand its consumers over
+     *
+     * @param root pending root handler
+     * @return false if this handler is no longer pending
+     */
+    @SuppressWarnings("unchecked")
+    private boolean linkTo(DeferredHandler<T> root) {
+        if (!HANDLER.compareAndSet(this, null, root)) {
+            return false;
+        }
+
+        // The root now waits on whatever resolves this handler, earlier hooks are stale
+        root.installHook(ON_CANCEL.getAndSet(this, null));
+        root.following = this.following;
+        int n = INTEREST.getAndSet(this, 0);
+        if (n != 0) {
+            root.addInterest(n);
+        }
+
+        Continuation<?, ?> head = takeConsumers();
+        while (head != null) {
+            Continuation<?, ?> next = head.next;
+            head.next = null;
+            root.when((Continuation<T, ?>) head);
+            head = next;
+        }
+        return true;
+    }
+
+    private boolean settle(Handler<T> handler, boolean cancelled) {
+        if (!HANDLER.compareAndSet(this, null, handler)) {
+            return false;
+        }
+
+        this.following = null;
+        Runnable hook = ON_CANCEL.getAndSet(this, null);
+        if (cancelled && hook != null) {
+            helper.getScheduler().enqueue(hook);
+        }
+
+        // Mark an empty consumer list done, or notify the consumers already waiting
+        Object q = this.consumers;
+        while (q == null && !CONSUMERS.compareAndSet(this, null, DONE)) {
+            q = this.consumers;
+        }
+        if (q != null) {
+            this.lane = this.priority;
+            helper.getScheduler().enqueue(this, this.lane);
         }
 
         if (this.context != null) {
             handler._report(this.context);
         }
+        return true;
     }
 
     @Override
     public void when(Continuation<T, ?> continuation) {
-        if (this.resolved) {
-            helper.getScheduler().enqueue(new ContinuationTask<>(continuation, this.handler));
-        } else {
-            synchronized (lock) {
-                if (this.consumers == null) {
-                    this.consumers = new ArrayList<>();
+        // Raise the lane first, so a resolve that sees this consumer also sees its priority
+        Priority p;
+        while (continuation.priority.isHigherThan(p = this.priority)
+                && !PRIORITY.compareAndSet(this, p, continuation.priority)) {
+        }
+
+        for (; ; ) {
+            Object q = this.consumers;
+            if (q == DONE) {
+                // A failed push may have left a link to consumers that are no longer ours
+                continuation.next = null;
+                Handler<T> h = this.join();
+                if (h instanceof DeferredHandler) {
+                    // Linked to a pending root, wait on the root instead
+                    h.when(continuation);
+                } else {
+                    helper.getScheduler().enqueue(continuation.at(h), continuation.priority);
                 }
-                this.consumers.add(continuation);
+                return;
+            }
+
+            continuation.next = (Continuation<?, ?>) q;
+            if (CONSUMERS.compareAndSet(this, q, continuation)) {
+                return;
             }
         }
     }
@@ -119,18 +482,21 @@ public class DeferredHandler<T> extends Handler<T> implements Runnable {
 
     @Override
     protected void _report(Object context) {
-        if (this.resolved) this.handler.join()._report(context);
+        Handler<T> h = this.handler;
+        if (h != null) h.join()._report(context);
     }
 
     @Override
     protected void _unreport() {
-        if (this.resolved) this.handler.join()._unreport();
+        Handler<T> h = this.handler;
+        if (h != null) h.join()._unreport();
     }
 
     @Override
     public void _fatal(Object context) {
         Object c = context == null ? this.context : context;
-        if (this.resolved) this.handler.join()._fatal(c);
+        Handler<T> h = this.handler;
+        if (h != null) h.join()._fatal(c);
     }
 
 }
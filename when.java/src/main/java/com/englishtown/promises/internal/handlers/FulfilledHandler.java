@@ -41,7 +41,7 @@ public class FulfilledHandler<T> extends Handler<T> {
         }
 
         //noinspection unchecked
-        ((Continuation<T, Object>) cont).resolve.accept((Thenable<Object>) x);
+        ((Continuation<T, Object>) cont).resolve((Thenable<Object>) x);
     }
 
     public T getValue() {
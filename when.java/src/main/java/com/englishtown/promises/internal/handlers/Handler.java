@@ -17,7 +17,7 @@ import static com.englishtown.promises.HandlerState.PENDING;
 public abstract class Handler<T> {
 
     protected final PromiseHelper helper;
-    protected Handler<T> handler;
+    protected volatile Handler<T> handler;
     public Object context;
     protected HandlerState _state;
 
@@ -69,21 +69,78 @@ public abstract class Handler<T> {
     /**
      * Recursively collapse handler chain to find the handler
      * nearest to the fully resolved value.
+     * <p>
+     * Each step points the handler at its grandparent (path halving), so repeated joins on a long
+     * chain are amortized O(1) and the skipped handlers can be collected.  Links only ever move
+     * further along the chain, so concurrent joins cannot create a cycle.
      *
      * @return handler nearest the fully resolved value
      */
     public Handler<T> join() {
         Handler<T> h = this;
-        while (h.handler != null) {
-            h = h.handler;
+        Handler<T> next;
+        while ((next = h.handler) != null) {
+            Handler<T> grand = next.handler;
+            if (grand == null) {
+                return next;
+            }
+            h.handler = grand;
+            h = grand;
         }
         return h;
     }
 
+    /**
+     * Register interest in this handler's outcome.  Interest that is never released keeps the
+     * handler from being cancelled when its other consumers give up on it.
+     */
+    public void retain() {
+    }
+
+    /**
+     * Release interest registered with {@link #retain()}.  Pending handlers with a cancel hook are
+     * cancelled when the last interest in them is released.
+     */
+    public void release() {
+    }
+
+    /**
+     * Reject with a {@link java.util.concurrent.CancellationException} if still pending, and pass the
+     * cancellation on to whatever would have resolved this handler
+     *
+     * @return true if this call cancelled the handler
+     */
+    public boolean cancel() {
+        return false;
+    }
+
+    /**
+     * Call back when this handler settles.  The consumer's interest is never released, so it
+     * keeps this handler from being cancelled.
+     *
+     * @param fulfilled called with the fulfillment value
+     * @param rejected  called with the rejection reason
+     */
     public void chain(Consumer<T> fulfilled, Consumer<Throwable> rejected) {
+        this.join().retain();
+        this.attach(fulfilled, rejected);
+    }
+
+    /**
+     * Call back when this handler settles, without registering interest.  Callers that
+     * {@link #retain()} and later {@link #release()} this handler use this to consume it.
+     *
+     * @param fulfilled called with the fulfillment value
+     * @param rejected  called with the rejection reason
+     * @return the continuation waiting on this handler, which can be {@link Continuation#detach() detached}
+     */
+    public Continuation<T, Object> attach(Consumer<T> fulfilled, Consumer<Throwable> rejected) {
 
-        Continuation<T, ?> cont = new Continuation<>();
-        cont.resolve = (x) -> {
+        // The callback results are not used
+        Continuation<T, Object> cont = new Continuation<T, Object>() {
+            @Override
+            public void resolve(Thenable<Object> x) {
+            }
         };
         cont.context = null;
         cont.fulfilled = fulfilled == null ? null : (x) -> {
@@ -96,6 +153,7 @@ public abstract class Handler<T> {
         };
 
         this.when(cont);
+        return cont;
     }
 
     public void map(Consumer<T> f, Handler<?> to) {
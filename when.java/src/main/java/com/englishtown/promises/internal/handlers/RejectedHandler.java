@@ -7,6 +7,8 @@ import com.englishtown.promises.internal.Continuation;
 import com.englishtown.promises.internal.PromiseHelper;
 import com.englishtown.promises.internal.TrustedPromise;
 
+import java.util.concurrent.CancellationException;
+
 import static com.englishtown.promises.HandlerState.REJECTED;
 
 /**
@@ -59,7 +61,7 @@ public class RejectedHandler<T> extends Handler<T> {
         }
 
         //noinspection unchecked
-        ((Continuation<T, Object>) cont).resolve.accept((Thenable<Object>) x);
+        ((Continuation<T, Object>) cont).resolve((Thenable<Object>) x);
     }
 
     @Override
@@ -79,7 +81,8 @@ public class RejectedHandler<T> extends Handler<T> {
     }
 
     private void reportUnhandled() {
-        if (!handled) {
+        // Nothing waiting on a cancelled promise is not an error
+        if (!handled && !(value instanceof CancellationException)) {
             reported = true;
             reporter.onPotentiallyUnhandledRejection(this, context);
         }
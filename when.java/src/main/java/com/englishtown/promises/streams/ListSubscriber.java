@@ -0,0 +1,58 @@
+package com.englishtown.promises.streams;
+
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link Subscriber} that collects every item into a list, requesting items in batches
+ */
+public class ListSubscriber<T> implements Subscriber<T> {
+
+    private final List<T> items = new ArrayList<>();
+    private final PromiseSubscriber<T> subscriber;
+    private final Promise<List<T>> promise;
+
+    /**
+     * @param when      when instance
+     * @param batchSize max number of items requested at once
+     */
+    public ListSubscriber(When when, int batchSize) {
+        // Signals are never concurrent, so the stage can add to the list without locking
+        this.subscriber = new PromiseSubscriber<>(when, batchSize, x -> {
+            items.add(x);
+            return null;
+        });
+        this.promise = subscriber.getPromise().then(x -> when.resolve(items));
+    }
+
+    /**
+     * @return promise for the list of items once the publisher completes, or rejected with the publisher's error
+     */
+    public Promise<List<T>> getPromise() {
+        return promise;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Override
+    public void onNext(T item) {
+        subscriber.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        subscriber.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        subscriber.onComplete();
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.englishtown.promises.streams;
+
+import com.englishtown.promises.State;
+import com.englishtown.promises.Thenable;
+import com.englishtown.promises.When;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.englishtown.promises.HandlerState.FULFILLED;
+import static com.englishtown.promises.HandlerState.REJECTED;
+
+/**
+ * {@link Publisher} of the values of a sequence of promises, in sequence order.
+ * <p>
+ * Promises are taken from the source into a window of at most prefetch promises, and a fulfilled value
+ * is only sent when the subscriber has requested it.  A slow subscriber therefore holds back the source
+ * instead of values queuing up.  The first rejection in sequence order is sent as
+ * {@link Subscriber#onError(Throwable)}.
+ * <p>
+ * The source is iterated once, so only one subscriber is supported.
+ */
+public class PromisePublisher<T> implements Publisher<T> {
+
+    private final When when;
+    private final Iterator<? extends Thenable<T>> source;
+    private final int prefetch;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public PromisePublisher(When when, Iterable<? extends Thenable<T>> source, int prefetch) {
+        this(when, source.iterator(), prefetch);
+    }
+
+    /**
+     * @param when     when instance used to follow the source promises
+     * @param source   promises to publish, only taken as the window has room
+     * @param prefetch max number of promises taken from the source but not yet sent
+     */
+    public PromisePublisher(When when, Iterator<? extends Thenable<T>> source, int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be greater than 0");
+        }
+        this.when = when;
+        this.source = source;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber cannot be null");
+        }
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("PromisePublisher only supports one subscriber"));
+            return;
+        }
+
+        Emitter emitter = new Emitter(subscriber);
+        subscriber.onSubscribe(emitter);
+        emitter.drain();
+    }
+
+    /**
+     * Subscription state.  Requests, cancels and settled promises all run the drain, and whichever
+     * thread wins the work counter iterates the source and signals the subscriber, so neither is
+     * used concurrently.
+     */
+    private class Emitter implements Subscription {
+
+        private final Subscriber<? super T> subscriber;
+        private final Deque<AtomicReference<State<T>>> window = new ArrayDeque<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable badRequest;
+        private boolean done;
+
+        private Emitter(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request must be positive, got " + n);
+            } else {
+                long r;
+                do {
+                    r = requested.get();
+                } while (r != Long.MAX_VALUE && !requested.compareAndSet(r, r + n < 0 ? Long.MAX_VALUE : r + n));
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                if (!done) {
+                    try {
+                        emit();
+                    } catch (Throwable t) {
+                        done = true;
+                        subscriber.onError(t);
+                    }
+                }
+                if (done) {
+                    window.clear();
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void emit() {
+            for (; ; ) {
+                if (cancelled) {
+                    done = true;
+                    return;
+                }
+                if (badRequest != null) {
+                    done = true;
+                    subscriber.onError(badRequest);
+                    return;
+                }
+
+                while (window.size() < prefetch && source.hasNext()) {
+                    AtomicReference<State<T>> slot = new AtomicReference<>();
+                    window.add(slot);
+                    when.resolve(source.next()).then(x -> {
+                        slot.set(new State<>(FULFILLED, x));
+                        drain();
+                        return null;
+                    }, t -> {
+                        slot.set(new State<>(REJECTED, t));
+                        drain();
+                        return null;
+                    });
+                }
+
+                long r = requested.get();
+                long emitted = 0;
+
+                while (emitted != r && !cancelled) {
+                    AtomicReference<State<T>> slot = window.peek();
+                    State<T> s = (slot == null ? null : slot.get());
+                    if (s == null) {
+                        break;
+                    }
+                    window.poll();
+                    if (s.getState() == REJECTED) {
+                        done = true;
+                        subscriber.onError(s.getReason());
+                        return;
+                    }
+                    subscriber.onNext(s.getValue());
+                    emitted++;
+                }
+
+                if (!cancelled && window.isEmpty() && !source.hasNext()) {
+                    done = true;
+                    subscriber.onComplete();
+                    return;
+                }
+
+                if (emitted == 0) {
+                    return;
+                }
+                if (r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+            }
+        }
+
+    }
+
+}
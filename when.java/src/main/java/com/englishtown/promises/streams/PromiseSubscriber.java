@@ -0,0 +1,137 @@
+package com.englishtown.promises.streams;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.Thenable;
+import com.englishtown.promises.When;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link Subscriber} that runs a promise returning stage for each item, with at most maxPending
+ * stage promises pending at once.
+ * <p>
+ * Demand is only replenished as stage promises settle, so a slow stage holds back the publisher
+ * instead of items queuing up.  Settled items are requested again in batches of half of maxPending.
+ * The promise from {@link #getPromise()} fulfills once the publisher completes and every stage has
+ * fulfilled, or rejects with the first publisher error or stage rejection, after which the
+ * subscription is cancelled.
+ */
+public class PromiseSubscriber<T> implements Subscriber<T> {
+
+    private final When when;
+    private final int maxPending;
+    private final int batch;
+    private final Function<T, ? extends Thenable<?>> stage;
+    private final Deferred<Void> deferred;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger settledSinceRequest = new AtomicInteger();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private volatile Subscription subscription;
+    private volatile boolean completed;
+
+    /**
+     * @param when       when instance used to follow the stage promises
+     * @param maxPending max number of items requested or in the stage at once
+     * @param stage      function run for each item, the next items are requested as its promises settle
+     */
+    public PromiseSubscriber(When when, int maxPending, Function<T, ? extends Thenable<?>> stage) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("maxPending must be greater than 0");
+        }
+        this.when = when;
+        this.maxPending = maxPending;
+        this.batch = Math.max(1, maxPending / 2);
+        this.stage = stage;
+        this.deferred = when.defer();
+    }
+
+    /**
+     * @return promise that fulfills once every item has been through the stage
+     */
+    public Promise<Void> getPromise() {
+        return deferred.getPromise();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(maxPending);
+    }
+
+    @Override
+    public void onNext(T item) {
+        if (item == null) {
+            throw new NullPointerException("item cannot be null");
+        }
+        if (finished.get()) {
+            return;
+        }
+
+        pending.incrementAndGet();
+
+        Thenable<?> result;
+        try {
+            result = stage.apply(item);
+        } catch (Throwable t) {
+            fail(t, true);
+            return;
+        }
+
+        when.resolve(result).then(x -> {
+            settled();
+            return null;
+        }, t -> {
+            fail(t, true);
+            return null;
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable, false);
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        if (pending.get() == 0) {
+            finish();
+        }
+    }
+
+    private void settled() {
+        if (pending.decrementAndGet() == 0 && completed) {
+            finish();
+            return;
+        }
+        if (settledSinceRequest.incrementAndGet() == batch) {
+            settledSinceRequest.addAndGet(-batch);
+            subscription.request(batch);
+        }
+    }
+
+    private void finish() {
+        if (finished.compareAndSet(false, true)) {
+            deferred.resolve((Void) null);
+        }
+    }
+
+    private void fail(Throwable t, boolean cancel) {
+        if (finished.compareAndSet(false, true)) {
+            if (cancel) {
+                subscription.cancel();
+            }
+            deferred.reject(t);
+        }
+    }
+
+}
@@ -0,0 +1,17 @@
+package com.englishtown.promises.streams;
+
+/**
+ * A provider of a demand-driven sequence of items, with the same contract as
+ * {@code java.util.concurrent.Flow.Publisher}, which is not available on Java 8
+ */
+@FunctionalInterface
+public interface Publisher<T> {
+
+    /**
+     * Add a subscriber, which is signalled {@link Subscriber#onSubscribe(Subscription)} before anything else
+     *
+     * @param subscriber the subscriber
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+
+}
@@ -0,0 +1,35 @@
+package com.englishtown.promises.streams;
+
+/**
+ * A receiver of items from a {@link Publisher}, with the same contract as
+ * {@code java.util.concurrent.Flow.Subscriber}.  Signals are never sent concurrently.
+ */
+public interface Subscriber<T> {
+
+    /**
+     * Called once before any other signal
+     *
+     * @param subscription subscription used to request items or cancel
+     */
+    void onSubscribe(Subscription subscription);
+
+    /**
+     * Called with the next item, at most as many times as items were requested
+     *
+     * @param item the item
+     */
+    void onNext(T item);
+
+    /**
+     * Called once if the publisher fails, no further signals are sent
+     *
+     * @param throwable the failure
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called once when there are no more items, no further signals are sent
+     */
+    void onComplete();
+
+}
@@ -0,0 +1,22 @@
+package com.englishtown.promises.streams;
+
+/**
+ * Link between a {@link Publisher} and a {@link Subscriber}, with the same contract as
+ * {@code java.util.concurrent.Flow.Subscription}
+ */
+public interface Subscription {
+
+    /**
+     * Add n items to the demand.  A non-positive n fails the subscription with an
+     * {@link IllegalArgumentException}.
+     *
+     * @param n number of items
+     */
+    void request(long n);
+
+    /**
+     * Stop sending signals, possibly after a few that were already in flight
+     */
+    void cancel();
+
+}
@@ -7,7 +7,18 @@ import com.englishtown.promises.internal.PromiseHelper;
 import com.englishtown.promises.internal.TrustedPromise;
 import org.junit.Before;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Abstract base class for integration tests
@@ -15,6 +26,7 @@ import java.util.concurrent.Executor;
 public abstract class AbstractIntegrationTest {
 
     protected Executor executor = new SyncExecutor();
+    protected int maxEagerDepth = 0;
 
     protected When when;
     protected PromiseHelper helper;
@@ -26,7 +38,7 @@ public abstract class AbstractIntegrationTest {
     public void setUp() throws Exception {
 
         Scheduler scheduler = new DefaultScheduler(() -> executor);
-        Environment environment = new DefaultEnvironment(scheduler);
+        Environment environment = new DefaultEnvironment(scheduler, maxEagerDepth);
 
         helper = new PromiseHelper(environment, context, reporter);
         ArrayHelper arrayHelper = new ArrayHelper(helper);
@@ -48,6 +60,63 @@ public abstract class AbstractIntegrationTest {
         return (TrustedPromise<T>) when.reject(t);
     }
 
+    /**
+     * Stress helper: for each round, create count deferreds, hand them to race, then settle them from
+     * four threads at once on a scheduler that runs callbacks in parallel.  Waits for finished to
+     * count down before shutting the threads down.
+     *
+     * @param rounds   number of rounds
+     * @param count    deferreds per round
+     * @param race     attaches the code under test to the round's deferreds
+     * @param settle   settles the deferred at an index
+     * @param finished counted down by the race callbacks once all rounds are done
+     */
+    protected void settleInParallel(int rounds, int count, BiConsumer<When, List<Deferred<Integer>>> race,
+                                    BiConsumer<Deferred<Integer>, Integer> settle, CountDownLatch finished) throws Exception {
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        When parallel = WhenFactory.createFor(new WorkStealingScheduler(() -> pool, 4));
+
+        try {
+            for (int round = 0; round < rounds; round++) {
+                List<Deferred<Integer>> deferreds = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    deferreds.add(parallel.defer());
+                }
+
+                race.accept(parallel, deferreds);
+
+                CountDownLatch settled = new CountDownLatch(4);
+                for (int t = 0; t < 4; t++) {
+                    int offset = t;
+                    pool.execute(() -> {
+                        for (int i = offset; i < count; i += 4) {
+                            settle.accept(deferreds.get(i), i);
+                        }
+                        settled.countDown();
+                    });
+                }
+                assertTrue(settled.await(10, TimeUnit.SECONDS));
+            }
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+    }
+
+    /**
+     * Assert that nothing strongly reachable still holds on to the referent
+     *
+     * @param ref weak reference to check
+     */
+    protected void assertCollected(WeakReference<?> ref) {
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(ref.get());
+    }
+
     public static class Sentinel {
 
         public Sentinel() {
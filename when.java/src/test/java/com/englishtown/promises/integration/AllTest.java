@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
@@ -50,6 +51,25 @@ public class AllTest extends AbstractIntegrationTest {
     }
     */
 
+    @Test
+    public void testAll_should_resolve_modifiable_list() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+
+        when.all(Arrays.asList(resolved(1), d.getPromise()))
+                .then(
+                        results -> {
+                            results.add(3);
+                            results.remove(0);
+                            assertThat(results, is(Arrays.asList(2, 3)));
+                            return (Promise<Integer>) null;
+                        })
+                .then(done.onFulfilled, done.onRejected);
+
+        d.resolve(2);
+        done.assertFulfilled();
+    }
+
     @Test
     public void testAll_should_resolve_promises_array() throws Exception {
 
@@ -168,4 +188,34 @@ public class AllTest extends AbstractIntegrationTest {
 	}
  */
 
+    @Test
+    public void testAll_should_resolve_promises_settled_from_many_threads() throws Exception {
+
+        int rounds = 200;
+        int count = 1_000;
+        List<String> failures = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(rounds);
+
+        settleInParallel(rounds, count, (parallel, deferreds) -> {
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            parallel.all(input).then(results -> {
+                for (int i = 0; i < count; i++) {
+                    if (results.get(i) == null || results.get(i) != i) {
+                        synchronized (failures) {
+                            failures.add("index " + i + " was " + results.get(i));
+                        }
+                        break;
+                    }
+                }
+                latch.countDown();
+                return null;
+            });
+        }, Deferred::resolve, latch);
+
+        assertEquals(new ArrayList<String>(), failures);
+
+    }
+
 }
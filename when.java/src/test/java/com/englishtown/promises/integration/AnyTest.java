@@ -1,14 +1,19 @@
 package com.englishtown.promises.integration;
 
+import com.englishtown.promises.Deferred;
 import com.englishtown.promises.Done;
 import com.englishtown.promises.Fail;
+import com.englishtown.promises.HandlerState;
 import com.englishtown.promises.Promise;
 import com.englishtown.promises.exceptions.RejectException;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
@@ -154,4 +159,54 @@ buster.testCase('when.any', {
 
 
      */
+    @Test
+    public void testAny_should_collect_every_rejection_from_many_threads() throws Exception {
+
+        int rounds = 100;
+        int count = 1_000;
+        List<String> failures = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(rounds);
+
+        settleInParallel(rounds, count, (parallel, deferreds) -> {
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            parallel.any(input).otherwise(t -> {
+                List<Throwable> errors = ((RejectException) t).getInnerExceptions();
+                HashSet<String> distinct = new HashSet<>();
+                errors.forEach(e -> distinct.add(e.getMessage()));
+                if (errors.size() != count || distinct.size() != count) {
+                    synchronized (failures) {
+                        failures.add(errors.size() + " errors, " + distinct.size() + " distinct");
+                    }
+                }
+                latch.countDown();
+                return null;
+            });
+        }, (d, i) -> d.reject(new RuntimeException(String.valueOf(i))), latch);
+
+        assertEquals(new ArrayList<String>(), failures);
+
+    }
+
+    private WeakReference<Sentinel> anyAgainst(Promise<Sentinel> loser) {
+        Sentinel winner = new Sentinel();
+        Done<Sentinel> done = new Done<>();
+        when.any(Arrays.asList(loser, when.resolve(winner))).then(done.onFulfilled, done.onRejected);
+        done.assertFulfilled();
+        return new WeakReference<>(winner);
+    }
+
+    @Test
+    public void testAny_should_not_be_held_by_loser_that_never_settles() throws Exception {
+
+        Deferred<Sentinel> loser = when.defer();
+        // Another consumer keeps the loser from being cancelled
+        loser.getPromise().done(x -> null, t -> null);
+
+        assertCollected(anyAgainst(loser.getPromise()));
+        assertEquals(HandlerState.PENDING, loser.getPromise().inspect().getState());
+
+    }
+
 }
@@ -1,10 +1,18 @@
 package com.englishtown.promises.integration;
 
+import com.englishtown.promises.Deferred;
 import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
 import com.englishtown.promises.impl.AsyncExecutor;
+import com.englishtown.promises.impl.AsyncExecutorOptions;
+import com.englishtown.promises.impl.DefaultScheduler;
+import org.junit.After;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -22,6 +30,11 @@ public class AsyncTest extends AbstractIntegrationTest {
         super.setUp();
     }
 
+    @After
+    public void tearDown() throws Exception {
+        ((AsyncExecutor) executor).shutdown();
+    }
+
     @Test
     public void testAsync_resolve() throws Exception {
 
@@ -78,4 +91,144 @@ public class AsyncTest extends AbstractIntegrationTest {
 
     }
 
+    @Test
+    public void testAsync_options() throws Exception {
+
+        AsyncExecutor asyncExecutor = new AsyncExecutor(new AsyncExecutorOptions()
+                .setPoolSize(2)
+                .setThreadNamePrefix("when-test-")
+                .setDaemon(false)
+                .setPriority(Thread.MAX_PRIORITY));
+
+        Thread[] thread = new Thread[1];
+        asyncExecutor.execute(() -> {
+            thread[0] = Thread.currentThread();
+            latch.countDown();
+        });
+
+        latch.await();
+        asyncExecutor.shutdown();
+        assertTrue(asyncExecutor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertTrue(thread[0].getName().startsWith("when-test-"));
+        assertFalse(thread[0].isDaemon());
+        assertEquals(Thread.MAX_PRIORITY, thread[0].getPriority());
+
+    }
+
+    @Test
+    public void testAsync_default_threads_are_daemon() throws Exception {
+
+        Thread[] thread = new Thread[1];
+        executor.execute(() -> {
+            thread[0] = Thread.currentThread();
+            latch.countDown();
+        });
+
+        latch.await();
+        assertTrue(thread[0].isDaemon());
+        assertTrue(thread[0].getName().startsWith(AsyncExecutorOptions.DEFAULT_THREAD_NAME_PREFIX));
+
+    }
+
+    @Test
+    public void testAsync_idle_threads_exit_after_keep_alive() throws Exception {
+
+        AsyncExecutor asyncExecutor = new AsyncExecutor(new AsyncExecutorOptions()
+                .setPoolSize(2)
+                .setKeepAliveMillis(10));
+
+        Thread[] thread = new Thread[1];
+        asyncExecutor.execute(() -> {
+            thread[0] = Thread.currentThread();
+            latch.countDown();
+        });
+
+        latch.await();
+        thread[0].join(10_000);
+        assertFalse(thread[0].isAlive());
+        assertFalse(asyncExecutor.isShutdown());
+
+    }
+
+    @Test
+    public void testAsync_bounded_queue_rejects() throws Exception {
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        AsyncExecutor asyncExecutor = new AsyncExecutor(new AsyncExecutorOptions()
+                .setPoolSize(1)
+                .setQueueSize(1));
+
+        try {
+            asyncExecutor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            asyncExecutor.execute(() -> {
+            });
+            asyncExecutor.execute(() -> {
+            });
+            fail();
+        } catch (RejectedExecutionException e) {
+            // Expected
+        } finally {
+            blocked.countDown();
+            asyncExecutor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void testAsync_shutdown_completes_pending_continuations() throws Exception {
+
+        AsyncExecutor asyncExecutor = (AsyncExecutor) executor;
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = d.getPromise();
+
+        for (int i = 0; i < 100; i++) {
+            p = p.then(x -> {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                return when.resolve(x + 1);
+            });
+        }
+        p.then(done.onFulfilled, done.onRejected);
+
+        d.resolve(0);
+        asyncExecutor.shutdown();
+
+        assertTrue(asyncExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(asyncExecutor.isTerminated());
+        done.assertFulfilled();
+        assertEquals(100, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testAsync_shutdown_completes_budgeted_drain() throws Exception {
+
+        AsyncExecutor asyncExecutor = new AsyncExecutor(new AsyncExecutorOptions().setPoolSize(1));
+        DefaultScheduler scheduler = new DefaultScheduler(() -> asyncExecutor, 1, 0);
+        AtomicInteger ran = new AtomicInteger();
+
+        scheduler.enqueue(() -> {
+            for (int i = 0; i < 10; i++) {
+                scheduler.enqueue(ran::incrementAndGet);
+            }
+            // The drain can no longer reschedule itself after its one-task budget
+            asyncExecutor.shutdown();
+        });
+
+        assertTrue(asyncExecutor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(10, ran.get());
+        assertEquals(0, scheduler.getBudgetExhaustedCount());
+
+    }
+
 }
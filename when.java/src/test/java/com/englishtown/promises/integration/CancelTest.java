@@ -0,0 +1,314 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Done;
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for {@link Promise#cancel()}
+ */
+public class CancelTest extends AbstractIntegrationTest {
+
+    private final int[] cancelled = new int[2];
+    private final Consumer<?>[] resolvers = new Consumer<?>[2];
+
+    @SuppressWarnings("unchecked")
+    private Promise<Integer> source(int index) {
+        return when.promise((resolve, reject, onCancel) -> {
+            resolvers[index] = resolve;
+            onCancel.accept(() -> cancelled[index]++);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resolve(int index, Integer value) {
+        ((Consumer<Integer>) resolvers[index]).accept(value);
+    }
+
+    @Test
+    public void testCancel_should_reject_pending_promise_with_cancellation() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = d.getPromise();
+        p.then(done.onFulfilled, done.onRejected);
+
+        assertTrue(p.cancel());
+        assertFalse(p.cancel());
+
+        d.resolve(1);
+        done.assertRejected();
+        assertTrue(done.getCause() instanceof CancellationException);
+
+        assertFalse(resolved(1).cancel());
+
+    }
+
+    @Test
+    public void testCancel_should_propagate_upstream_to_cancellable_source() throws Exception {
+
+        Promise<Integer> source = source(0);
+        Promise<Integer> p = source.then(x -> resolved(x + 1)).then(x -> resolved(x * 2));
+
+        assertEquals(0, cancelled[0]);
+        assertTrue(p.cancel());
+
+        assertEquals(1, cancelled[0]);
+        assertEquals(HandlerState.REJECTED, source.inspect().getState());
+        assertTrue(source.inspect().getReason() instanceof CancellationException);
+
+    }
+
+    @Test
+    public void testCancel_should_stop_at_plain_deferred() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = d.getPromise();
+
+        assertTrue(p.then(x -> resolved(x + 1)).cancel());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        p.then(done.onFulfilled, done.onRejected);
+        d.resolve(5);
+        done.assertFulfilled();
+        assertEquals(5, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testRace_should_not_cancel_plain_deferred_losers() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> loser = when.defer();
+        when.race(Arrays.asList(loser.getPromise(), resolved(1)));
+
+        loser.getPromise().then(done.onFulfilled, done.onRejected);
+        loser.resolve(2);
+        done.assertFulfilled();
+        assertEquals(2, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testCancel_should_run_hook_registered_after_linking() throws Exception {
+
+        List<Consumer<Runnable>> hooks = new ArrayList<>();
+        Promise<Integer> inner = when.promise((resolve, reject, onCancel) -> {
+            hooks.add(onCancel);
+            onCancel.accept(() -> cancelled[1]++);
+        });
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> outer = d.getPromise().then(x -> inner);
+
+        // Linking hands inner's consumers and hook over to outer, the new hook replaces the old one
+        d.resolve(1);
+        hooks.get(0).accept(() -> cancelled[0]++);
+
+        assertTrue(outer.cancel());
+        assertEquals(1, cancelled[0]);
+        assertEquals(0, cancelled[1]);
+        assertEquals(HandlerState.REJECTED, inner.inspect().getState());
+
+    }
+
+    @Test
+    public void testCancel_should_not_reject_followed_promise_with_other_consumers() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> trigger = when.defer();
+        Deferred<Integer> src = when.defer();
+        Promise<Integer> o = src.getPromise();
+        o.then(done.onFulfilled, done.onRejected);
+
+        Promise<Integer> c1 = trigger.getPromise().then(x -> o);
+        trigger.resolve(1);
+
+        assertTrue(c1.cancel());
+        assertEquals(HandlerState.REJECTED, c1.inspect().getState());
+        assertEquals(HandlerState.PENDING, o.inspect().getState());
+
+        src.resolve(42);
+        done.assertFulfilled();
+        assertEquals(42, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testCancel_should_not_cancel_opted_in_source_with_other_consumers() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> trigger = when.defer();
+        Promise<Integer> o = source(0);
+        o.then(done.onFulfilled, done.onRejected);
+
+        Promise<Integer> c1 = trigger.getPromise().then(x -> o);
+        trigger.resolve(1);
+
+        assertTrue(c1.cancel());
+        assertEquals(0, cancelled[0]);
+
+        resolve(0, 42);
+        done.assertFulfilled();
+        assertEquals(42, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testCancel_should_not_reject_deferred_resolved_into_it() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> src = when.defer();
+        Promise<Integer> o = src.getPromise();
+        Deferred<Integer> d2 = when.defer();
+
+        d2.resolve(o);
+        assertTrue(d2.getPromise().cancel());
+        assertEquals(HandlerState.PENDING, o.inspect().getState());
+
+        o.then(done.onFulfilled, done.onRejected);
+        src.resolve(42);
+        done.assertFulfilled();
+        assertEquals(42, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testCancel_should_propagate_to_linked_source_nothing_else_waits_on() throws Exception {
+
+        Deferred<Integer> d2 = when.defer();
+        d2.resolve(source(0));
+
+        assertTrue(d2.getPromise().cancel());
+        assertEquals(1, cancelled[0]);
+
+    }
+
+    @Test
+    public void testCancel_should_run_hook_registered_after_cancel() throws Exception {
+
+        List<Consumer<Runnable>> hooks = new ArrayList<>();
+        Promise<Integer> p = when.promise((resolve, reject, onCancel) -> hooks.add(onCancel));
+
+        assertTrue(p.cancel());
+        hooks.get(0).accept(() -> cancelled[0]++);
+        assertEquals(1, cancelled[0]);
+
+    }
+
+    @Test
+    public void testCancel_should_not_propagate_while_another_consumer_waits() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Promise<Integer> source = source(0);
+        Promise<Integer> a = source.then(x -> resolved(x + 1));
+        Promise<Integer> b = source.then(x -> resolved(x + 2));
+        b.then(done.onFulfilled, done.onRejected);
+
+        a.cancel();
+        assertEquals(0, cancelled[0]);
+        assertEquals(HandlerState.PENDING, source.inspect().getState());
+
+        resolve(0, 1);
+        done.assertFulfilled();
+        assertEquals(3, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testCancel_should_not_propagate_past_done() throws Exception {
+
+        Promise<Integer> source = source(0);
+        source.done(x -> null, t -> null);
+        source.then(x -> resolved(x + 1)).cancel();
+
+        assertEquals(0, cancelled[0]);
+        assertEquals(HandlerState.PENDING, source.inspect().getState());
+
+    }
+
+    @Test
+    public void testRace_should_cancel_losers() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        when.race(Arrays.asList(source(0), source(1))).then(done.onFulfilled, done.onRejected);
+
+        resolve(1, 2);
+
+        done.assertFulfilled();
+        assertEquals(2, done.getValue().intValue());
+        assertEquals(1, cancelled[0]);
+        assertEquals(0, cancelled[1]);
+
+    }
+
+    @Test
+    public void testRace_should_not_cancel_loser_another_consumer_waits_on() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Promise<Integer> loser = source(0);
+        loser.then(done.onFulfilled, done.onRejected);
+
+        when.race(Arrays.asList(loser, source(1)));
+        resolve(1, 2);
+        assertEquals(0, cancelled[0]);
+
+        resolve(0, 1);
+        done.assertFulfilled();
+
+    }
+
+    @Test
+    public void testAny_should_cancel_losers_and_ignore_rejections() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Promise<Integer> rejected = rejected(new RuntimeException());
+        when.any(Arrays.asList(rejected, source(0), source(1))).then(done.onFulfilled, done.onRejected);
+
+        resolve(0, 1);
+
+        done.assertFulfilled();
+        assertEquals(1, done.getValue().intValue());
+        assertEquals(0, cancelled[0]);
+        assertEquals(1, cancelled[1]);
+
+    }
+
+    @Test
+    public void testAll_should_cancel_pending_inputs_when_cancelled() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+        Promise<List<Integer>> all = when.all(Arrays.asList(resolved(1), source(0), source(1)));
+        all.then(done.onFulfilled, done.onRejected);
+
+        resolve(0, 2);
+        all.cancel();
+
+        done.assertRejected();
+        assertTrue(done.getCause() instanceof CancellationException);
+        assertEquals(0, cancelled[0]);
+        assertEquals(1, cancelled[1]);
+
+    }
+
+    @Test
+    public void testTimeout_should_cancel_source_when_cancelled() throws Exception {
+
+        when.timeout(source(0), 60_000).cancel();
+        assertEquals(1, cancelled[0]);
+
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration tests for {@link Promise#toCompletableFuture()} and when.from()
+ */
+public class CompletableFutureTest extends AbstractIntegrationTest {
+
+    // Scheduler drains only run when the test runs them, so extra hops are visible
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    {
+        executor = tasks::add;
+    }
+
+    private int runTasks() {
+        int count = 0;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testToCompletableFuture_should_complete_immediately_for_fulfilled_promise() throws Exception {
+
+        CompletableFuture<Integer> future = resolved(1).toCompletableFuture();
+
+        assertTrue(future.isDone());
+        assertEquals(1, future.get().intValue());
+        assertEquals(0, runTasks());
+
+    }
+
+    @Test
+    public void testToCompletableFuture_should_complete_exceptionally_for_rejected_promise() throws Exception {
+
+        Throwable t = new RuntimeException();
+        CompletableFuture<Integer> future = this.<Integer>rejected(t).toCompletableFuture();
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(t, e.getCause());
+        }
+
+    }
+
+    @Test
+    public void testToCompletableFuture_should_complete_in_the_resolution_drain() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+        CompletableFuture<Integer> future = d.getPromise().toCompletableFuture();
+        assertFalse(future.isDone());
+
+        d.resolve(2);
+        assertEquals(1, runTasks());
+        assertEquals(2, future.get().intValue());
+
+    }
+
+    @Test
+    public void testFrom_should_fulfill_when_stage_completes() throws Exception {
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Promise<Integer> p = when.from(future);
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        future.complete(3);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(3, p.inspect().getValue().intValue());
+        assertEquals(0, runTasks());
+
+    }
+
+    @Test
+    public void testFrom_should_reject_with_cause_of_completion_exception() throws Exception {
+
+        Throwable t = new RuntimeException();
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Promise<Integer> p = when.from(future.thenApply(x -> x));
+
+        future.completeExceptionally(t);
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertSame(t, p.inspect().getReason());
+
+    }
+
+    @Test
+    public void testFrom_should_reject_when_stage_is_cancelled() throws Exception {
+
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Promise<Integer> p = when.from(future);
+
+        future.cancel(false);
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof CancellationException);
+
+    }
+
+    @Test
+    public void testFrom_should_round_trip() throws Exception {
+
+        CompletableFuture<Integer> future = CompletableFuture.completedFuture(4);
+        CompletableFuture<Integer> back = when.from(future).toCompletableFuture();
+
+        assertEquals(4, back.get().intValue());
+        assertFalse(back.thenApply(x -> x).isCompletedExceptionally());
+
+    }
+
+    @Test
+    public void testFrom_should_cancel_stage_when_cancelled() throws Exception {
+
+        CompletableFuture<Integer> stage = new CompletableFuture<>();
+        Promise<Integer> p = when.from(stage);
+
+        assertTrue(p.cancel());
+        runTasks();
+        assertTrue(stage.isCancelled());
+
+    }
+
+    @Test
+    public void testToCompletableFuture_should_cancel_promise_when_cancelled() throws Exception {
+
+        CompletableFuture<Integer> stage = new CompletableFuture<>();
+        Promise<Integer> p = when.from(stage).then(x -> resolved(x + 1));
+
+        assertTrue(p.toCompletableFuture().cancel(true));
+        runTasks();
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof CancellationException);
+        assertTrue(stage.isCancelled());
+
+    }
+
+    @Test
+    public void testToCompletableFuture_should_not_cancel_promise_another_consumer_waits_on() throws Exception {
+
+        CompletableFuture<Integer> stage = new CompletableFuture<>();
+        Promise<Integer> p = when.from(stage);
+        CompletableFuture<Integer> other = p.toCompletableFuture();
+
+        p.toCompletableFuture().cancel(true);
+        runTasks();
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        stage.complete(1);
+        runTasks();
+        assertEquals(1, other.get().intValue());
+
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.promises.impl.DefaultScheduler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Stress tests for consumers attaching to and resolving a deferred promise from many threads at once.
+ * Each round races the actors on a fresh deferred and checks every consumer ran exactly once.
+ */
+public class DeferredConcurrencyTest {
+
+    private static final int ROUNDS = 20_000;
+    private static final int ACTORS = 4;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final When when = WhenFactory.createFor(new DefaultScheduler(() -> pool));
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    private void race(Runnable... actors) throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (Runnable actor : actors) {
+            Thread t = new Thread(actor);
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    @Test
+    public void testThen_racing_resolve_should_notify_each_consumer_once() throws Exception {
+
+        List<Deferred<Integer>> deferreds = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            deferreds.add(when.defer());
+        }
+
+        AtomicIntegerArray calls = new AtomicIntegerArray(ROUNDS);
+        AtomicIntegerArray wrongValues = new AtomicIntegerArray(ROUNDS);
+        CountDownLatch latch = new CountDownLatch(ROUNDS * ACTORS);
+
+        Runnable attach = () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                int round = i;
+                deferreds.get(i).getPromise().then(x -> {
+                    if (x != round) {
+                        wrongValues.incrementAndGet(round);
+                    }
+                    calls.incrementAndGet(round);
+                    latch.countDown();
+                    return null;
+                });
+            }
+        };
+        Runnable resolve = () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                deferreds.get(i).resolve(i);
+            }
+        };
+
+        Runnable[] actors = new Runnable[ACTORS + 1];
+        for (int i = 0; i < ACTORS; i++) {
+            actors[i] = attach;
+        }
+        actors[ACTORS] = resolve;
+        race(actors);
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals("round " + i, ACTORS, calls.get(i));
+            assertEquals("round " + i, 0, wrongValues.get(i));
+        }
+
+    }
+
+    @Test
+    public void testResolve_racing_resolve_should_settle_once() throws Exception {
+
+        List<Deferred<Integer>> deferreds = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            Deferred<Integer> d = when.defer();
+            deferreds.add(d);
+        }
+
+        AtomicReferenceArray<Integer> seen = new AtomicReferenceArray<>(ROUNDS);
+        AtomicIntegerArray mismatches = new AtomicIntegerArray(ROUNDS);
+        CountDownLatch latch = new CountDownLatch(ROUNDS * 2);
+
+        Runnable attach = () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                int round = i;
+                deferreds.get(i).getPromise().then(x -> {
+                    if (!seen.compareAndSet(round, null, x) && !seen.get(round).equals(x)) {
+                        mismatches.incrementAndGet(round);
+                    }
+                    latch.countDown();
+                    return null;
+                });
+            }
+        };
+
+        race(attach, attach, () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                deferreds.get(i).resolve(1);
+            }
+        }, () -> {
+            for (int i = 0; i < ROUNDS; i++) {
+                deferreds.get(i).resolve(2);
+            }
+        });
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < ROUNDS; i++) {
+            assertEquals("round " + i, 0, mismatches.get(i));
+        }
+
+    }
+
+    @Test
+    public void testThen_from_many_threads_on_hot_promise() throws Exception {
+
+        int threads = 8;
+        int perThread = 20_000;
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> hot = d.getPromise();
+        CountDownLatch latch = new CountDownLatch(threads * perThread);
+
+        Runnable[] actors = new Runnable[threads];
+        for (int i = 0; i < threads; i++) {
+            actors[i] = () -> {
+                for (int j = 0; j < perThread; j++) {
+                    hot.then(x -> {
+                        latch.countDown();
+                        return null;
+                    });
+                }
+            };
+        }
+        race(actors);
+        d.resolve(1);
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+
+    }
+
+}
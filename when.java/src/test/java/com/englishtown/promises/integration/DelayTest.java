@@ -0,0 +1,185 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.Scheduler;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.promises.exceptions.TimeoutException;
+import com.englishtown.promises.impl.DefaultEnvironment;
+import com.englishtown.promises.impl.DefaultScheduler;
+import com.englishtown.promises.impl.DefaultWhen;
+import com.englishtown.promises.impl.HashedWheelTimer;
+import com.englishtown.promises.internal.ArrayHelper;
+import com.englishtown.promises.internal.PromiseHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for delay() and timeout()
+ */
+public class DelayTest extends AbstractIntegrationTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64);
+    private final Done<Integer> done = new Done<>();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        DefaultEnvironment environment = new DefaultEnvironment(new DefaultScheduler(() -> executor)).setTimer(timer);
+        helper = new PromiseHelper(environment, context, reporter);
+        when = new DefaultWhen(helper, new ArrayHelper(helper));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        timer.stop();
+    }
+
+    private void await(Promise<Integer> p) throws Exception {
+        p.then(done.onFulfilled, done.onRejected).ensure(latch::countDown);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDelay_should_fulfill_after_delay() throws Exception {
+
+        long start = System.nanoTime();
+        await(when.delay(1, 20));
+
+        done.assertFulfilled();
+        assertEquals(1, done.getValue().intValue());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+    }
+
+    @Test
+    public void testDelay_should_delay_after_promise_fulfills() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = when.delay(d.getPromise(), 20);
+
+        long start = System.nanoTime();
+        d.resolve(2);
+        await(p);
+
+        done.assertFulfilled();
+        assertEquals(2, done.getValue().intValue());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+    }
+
+    @Test
+    public void testDelay_should_not_delay_rejection() throws Exception {
+
+        Throwable t = new RuntimeException();
+        Promise<Integer> p = when.delay(this.<Integer>rejected(t), 60_000);
+
+        await(p);
+        done.assertRejected();
+        assertSame(t, done.getCause());
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testDelay_should_cancel_timer_when_cancelled() throws Exception {
+
+        Promise<Integer> p = when.delay(1, 60_000);
+        assertEquals(1, timer.getPendingTimeouts());
+
+        assertTrue(p.cancel());
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testTimeout_should_reject_when_promise_does_not_settle() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+        await(when.timeout(d.getPromise(), 10));
+
+        done.assertRejected();
+        assertTrue(done.getCause() instanceof TimeoutException);
+
+    }
+
+    @Test
+    public void testTimeout_should_follow_promise_and_cancel_timer() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = when.timeout(d.getPromise(), 60_000);
+        assertEquals(1, timer.getPendingTimeouts());
+
+        d.resolve(3);
+        await(p);
+
+        done.assertFulfilled();
+        assertEquals(3, done.getValue().intValue());
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testTimeout_should_return_settled_promise() throws Exception {
+
+        Promise<Integer> p = resolved(4);
+        assertSame(p, when.timeout(p, 10));
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testTimeout_should_use_default_timer() throws Exception {
+
+        When when = WhenFactory.createSync();
+        Deferred<Integer> d = when.defer();
+
+        await(when.timeout(d.getPromise(), 10));
+        done.assertRejected();
+        assertTrue(done.getCause() instanceof TimeoutException);
+
+    }
+
+    @Test
+    public void testTimeout_should_use_timer_set_after_when_was_created() throws Exception {
+
+        HashedWheelTimer other = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 64);
+        try {
+            DefaultEnvironment environment = new DefaultEnvironment(new DefaultScheduler(() -> executor));
+            PromiseHelper helper = new PromiseHelper(environment, context, reporter);
+            When when = new DefaultWhen(helper, new ArrayHelper(helper));
+
+            environment.setTimer(other);
+            when.timeout(when.defer().getPromise(), 60_000);
+            assertEquals(1, other.getPendingTimeouts());
+        } finally {
+            other.stop();
+        }
+
+    }
+
+    @Test
+    public void testDelay_should_use_default_timer_when_environment_has_none() throws Exception {
+
+        Scheduler scheduler = new DefaultScheduler(() -> executor);
+        PromiseHelper helper = new PromiseHelper(() -> scheduler, context, reporter);
+        When when = new DefaultWhen(helper, new ArrayHelper(helper));
+
+        await(when.delay(1, 10));
+        done.assertFulfilled();
+        assertEquals(1, done.getValue().intValue());
+
+    }
+
+}
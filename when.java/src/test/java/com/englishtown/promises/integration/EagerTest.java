@@ -0,0 +1,142 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Priority;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.internal.TrustedPromise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for eager mode, see {@link com.englishtown.promises.Environment#getMaxEagerDepth()}
+ */
+public class EagerTest extends AbstractIntegrationTest {
+
+    private static final int MAX_DEPTH = 4;
+
+    private final Queue<Runnable> drains = new LinkedList<>();
+
+    @Override
+    public void setUp() throws Exception {
+        // Hold drains until run() so scheduled callbacks can be told apart from eager ones
+        executor = drains::add;
+        maxEagerDepth = MAX_DEPTH;
+        super.setUp();
+    }
+
+    private void run() {
+        Runnable drain = drains.poll();
+        while (drain != null) {
+            drain.run();
+            drain = drains.poll();
+        }
+    }
+
+    @Test
+    public void testEager_should_run_fulfilled_callback_synchronously() throws Exception {
+
+        Done<Integer> done = new Done<>();
+
+        when.resolve(1)
+                .then(x -> when.resolve(x + 1))
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(2, done.getValue().intValue());
+        assertTrue(drains.isEmpty());
+
+    }
+
+    @Test
+    public void testEager_should_run_rejected_callback_synchronously() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Throwable t = new RuntimeException();
+
+        when.<Integer>reject(t)
+                .then(null, x -> when.resolve(x == t ? 1 : 0))
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(1, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testEager_should_reject_when_callback_throws() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        RuntimeException t = new RuntimeException();
+
+        when.resolve(1)
+                .<Integer>then(x -> {
+                    throw t;
+                })
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertRejected();
+        assertEquals(t, done.getCause());
+
+    }
+
+    @Test
+    public void testEager_should_schedule_callbacks_on_pending_promises() throws Exception {
+
+        Done<Integer> done = new Done<>();
+        Deferred<Integer> d = when.defer();
+
+        d.getPromise().then(done.onFulfilled, done.onRejected);
+        d.resolve(1);
+
+        assertFalse(done.fulfilled());
+        run();
+        done.assertFulfilled();
+
+    }
+
+    @Test
+    public void testEager_should_schedule_callbacks_beyond_max_depth() throws Exception {
+
+        List<Integer> depths = new ArrayList<>();
+
+        Function<Integer, Promise<Integer>> nest = new Function<Integer, Promise<Integer>>() {
+            @Override
+            public Promise<Integer> apply(Integer depth) {
+                depths.add(depth);
+                return depth < MAX_DEPTH * 2 ? when.resolve(depth + 1).then(this) : when.resolve(depth);
+            }
+        };
+
+        Done<Integer> done = new Done<>();
+        when.resolve(1).then(nest).then(done.onFulfilled, done.onRejected);
+
+        // Only MAX_DEPTH nested callbacks ran synchronously, the rest were trampolined
+        assertEquals(MAX_DEPTH, depths.size());
+        assertFalse(done.fulfilled());
+
+        run();
+        done.assertFulfilled();
+        assertEquals(MAX_DEPTH * 2, done.getValue().intValue());
+        assertEquals(MAX_DEPTH * 2, depths.size());
+
+    }
+
+    @Test
+    public void testEager_should_keep_priority() throws Exception {
+
+        Promise<Integer> p = when.resolve(1).withPriority(Priority.HIGH).then(x -> when.resolve(x + 1));
+        assertEquals(Priority.HIGH, ((TrustedPromise<Integer>) p).getPriority());
+
+    }
+
+}
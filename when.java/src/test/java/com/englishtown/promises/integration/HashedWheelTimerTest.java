@@ -0,0 +1,121 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Timer;
+import com.englishtown.promises.impl.HashedWheelTimer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for {@link com.englishtown.promises.impl.HashedWheelTimer}
+ */
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void tearDown() throws Exception {
+        timer.stop();
+    }
+
+    @Test
+    public void testSchedule_should_run_tasks_after_delay() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(2);
+        long[] elapsed = new long[2];
+        long start = System.nanoTime();
+
+        // 30ms is several turns of an 8 tick wheel
+        timer.schedule(() -> {
+            elapsed[0] = System.nanoTime() - start;
+            latch.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> {
+            elapsed[1] = System.nanoTime() - start;
+            latch.countDown();
+        }, 5, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(elapsed[1] >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(elapsed[1] < elapsed[0]);
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testCancel_should_remove_timeouts_without_running_them() throws Exception {
+
+        AtomicInteger runs = new AtomicInteger();
+        List<Timer.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            timeouts.add(timer.schedule(runs::incrementAndGet, i % 50, TimeUnit.MILLISECONDS));
+        }
+
+        int cancelled = 0;
+        for (Timer.Timeout timeout : timeouts) {
+            if (timeout.cancel()) {
+                cancelled++;
+            }
+            assertFalse(timeout.cancel());
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        timer.schedule(latch::countDown, 60, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertEquals(100_000, cancelled + runs.get());
+        assertEquals(0, timer.getPendingTimeouts());
+
+    }
+
+    @Test
+    public void testSchedule_should_keep_running_after_a_task_throws() throws Exception {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        AtomicInteger errors = new AtomicInteger();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> errors.incrementAndGet());
+
+        try {
+            timer.schedule(() -> {
+                throw new RuntimeException();
+            }, 1, TimeUnit.MILLISECONDS);
+            timer.schedule(latch::countDown, 5, TimeUnit.MILLISECONDS);
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals(1, errors.get());
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSchedule_should_throw_after_stop() throws Exception {
+
+        timer.schedule(() -> {
+        }, 1, TimeUnit.MILLISECONDS);
+        timer.stop();
+        timer.schedule(() -> {
+        }, 1, TimeUnit.MILLISECONDS);
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStop_should_refuse_to_stop_default_timer() throws Exception {
+
+        HashedWheelTimer.getDefault().stop();
+
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for recursive promise loops
+ */
+public class LoopTest extends AbstractIntegrationTest {
+
+    private static final int ITERATIONS = 10_000_000;
+    private static final int FIRST_SAMPLE = 1_000_000;
+    private static final int SECOND_SAMPLE = 9_000_000;
+    private static final long MAX_GROWTH = 32 * 1024 * 1024;
+
+    private final Done<Integer> done = new Done<>();
+    private long firstSample;
+    private long secondSample;
+
+    private Promise<Integer> loop(int i) {
+        if (i == FIRST_SAMPLE) {
+            firstSample = usedHeap();
+        } else if (i == SECOND_SAMPLE) {
+            secondSample = usedHeap();
+        }
+        return i == ITERATIONS ? when.resolve(i) : when.resolve(i + 1).then(this::loop);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    public void testLoop_should_run_in_constant_memory() throws Exception {
+
+        // Every step resolves the previous step's promise with a new pending promise.  Intermediate
+        // handlers must be released as the loop goes, or 8M steps would retain hundreds of MB.
+        loop(0).then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(ITERATIONS, done.getValue().intValue());
+        assertTrue("heap grew by " + (secondSample - firstSample) + " bytes",
+                secondSample - firstSample < MAX_GROWTH);
+
+    }
+
+}
@@ -6,8 +6,12 @@ import com.englishtown.promises.Done;
 import com.englishtown.promises.Promise;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.hamcrest.core.Is.is;
@@ -99,6 +103,151 @@ public class MapTest extends AbstractIntegrationTest {
 
     }
 
+    @Test
+    public void testMap_should_limit_pending_mapped_promises_and_keep_input_order() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+        List<Deferred<Integer>> pending = new ArrayList<>();
+        int[] maxPending = new int[1];
+
+        List<Promise<Integer>> input = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            input.add(resolved(i));
+        }
+
+        when.<Integer, Integer>map(input, x -> {
+            Deferred<Integer> d = when.defer();
+            pending.add(d);
+            maxPending[0] = Math.max(maxPending[0], pending.size());
+            return d.getPromise().then(y -> resolved(x * 2));
+        }, 3).then(done.onFulfilled, done.onRejected);
+
+        // Settle the newest first, so mappings complete out of input order
+        while (!pending.isEmpty()) {
+            pending.remove(pending.size() - 1).resolve(0);
+        }
+
+        done.assertFulfilled();
+        assertEquals(3, maxPending[0]);
+        assertThat(done.getValue(), is(Arrays.asList(0, 2, 4, 6, 8, 10, 12, 14, 16, 18)));
+
+    }
+
+    @Test
+    public void testMap_should_take_inputs_lazily_from_iterator() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+        List<Deferred<Integer>> pending = new ArrayList<>();
+        int[] taken = new int[1];
+
+        Iterator<Promise<Integer>> inputs = new Iterator<Promise<Integer>>() {
+            @Override
+            public boolean hasNext() {
+                return taken[0] < 100;
+            }
+
+            @Override
+            public Promise<Integer> next() {
+                return resolved(taken[0]++);
+            }
+        };
+
+        when.map(inputs, x -> {
+            Deferred<Integer> d = when.defer();
+            pending.add(d);
+            return d.getPromise().then(y -> resolved(x + 1));
+        }, 2).then(done.onFulfilled, done.onRejected);
+
+        assertEquals(2, taken[0]);
+
+        pending.remove(0).resolve(0);
+        assertEquals(3, taken[0]);
+
+        while (!pending.isEmpty()) {
+            pending.remove(0).resolve(0);
+        }
+
+        done.assertFulfilled();
+        assertEquals(100, done.getValue().size());
+        assertEquals(1, done.getValue().get(0).intValue());
+        assertEquals(100, done.getValue().get(99).intValue());
+
+    }
+
+    @Test
+    public void testMap_should_reject_and_stop_taking_inputs_when_mapping_rejects() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+        Throwable t = new RuntimeException();
+        int[] taken = new int[1];
+
+        Iterator<Promise<Integer>> inputs = new Iterator<Promise<Integer>>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Promise<Integer> next() {
+                return resolved(taken[0]++);
+            }
+        };
+
+        when.<Integer, Integer>map(inputs, x -> x == 5 ? rejected(t) : resolved(x), 2)
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertRejected();
+        assertEquals(t, done.getCause());
+        assertThat(taken[0] < 10, is(true));
+
+    }
+
+    @Test
+    public void testMap_should_resolve_empty_input_with_empty_list() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+
+        when.<Integer, Integer>map(new ArrayList<Promise<Integer>>(), this::resolved, 4)
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(0, done.getValue().size());
+
+    }
+
+    @Test
+    public void testMap_bounded_concurrency_stress() throws Exception {
+
+        int rounds = 50;
+        int count = 200;
+        CountDownLatch finished = new CountDownLatch(rounds);
+        AtomicInteger errors = new AtomicInteger();
+
+        settleInParallel(rounds, count, (w, deferreds) -> {
+            AtomicInteger active = new AtomicInteger();
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            w.<Integer, Integer>map(input, x -> {
+                if (active.incrementAndGet() > 8) {
+                    errors.incrementAndGet();
+                }
+                return w.resolve(x).ensure(active::decrementAndGet);
+            }, 8).then(results -> {
+                for (int i = 0; i < count; i++) {
+                    if (results.get(i) != i) {
+                        errors.incrementAndGet();
+                    }
+                }
+                finished.countDown();
+                return null;
+            });
+        }, Deferred::resolve, finished);
+
+        assertEquals(0, errors.get());
+
+    }
+
     /*
 
     @Test
@@ -0,0 +1,124 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.State;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.englishtown.promises.HandlerState.FULFILLED;
+import static com.englishtown.promises.HandlerState.REJECTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Integration tests for when.onEachSettled()
+ */
+public class OnEachSettledTest extends AbstractIntegrationTest {
+
+    private Done<Void> done = new Done<>();
+
+    @Test
+    public void testOnEachSettled_should_fulfill_for_empty_array() throws Exception {
+
+        when.<Integer>onEachSettled(new ArrayList<>(), (s, i) -> {
+            throw new IllegalStateException();
+        }).then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+
+    }
+
+    @Test
+    public void testOnEachSettled_should_deliver_outcomes_in_completion_order() throws Exception {
+
+        Throwable t = new RuntimeException();
+        Deferred<Integer> d0 = when.defer();
+        Deferred<Integer> d1 = when.defer();
+        Deferred<Integer> d2 = when.defer();
+        List<Promise<Integer>> input = Arrays.asList(d0.getPromise(), d1.getPromise(), d2.getPromise());
+
+        List<Integer> indexes = new ArrayList<>();
+        List<State<Integer>> states = new ArrayList<>();
+
+        when.onEachSettled(input, (s, i) -> {
+            indexes.add(i);
+            states.add(s);
+        }).then(done.onFulfilled, done.onRejected);
+
+        d2.resolve(2);
+        d0.reject(t);
+        assertFalse(done.fulfilled());
+        d1.resolve(1);
+
+        done.assertFulfilled();
+        assertEquals(Arrays.asList(2, 0, 1), indexes);
+        assertEquals(FULFILLED, states.get(0).getState());
+        assertEquals(2, states.get(0).getValue().intValue());
+        assertEquals(REJECTED, states.get(1).getState());
+        assertSame(t, states.get(1).getReason());
+        assertEquals(1, states.get(2).getValue().intValue());
+
+    }
+
+    @Test
+    public void testOnEachSettled_should_reject_and_stop_when_consumer_throws() throws Exception {
+
+        Throwable t = new RuntimeException();
+        List<Promise<Integer>> input = Arrays.asList(resolved(0), resolved(1), resolved(2));
+        AtomicInteger calls = new AtomicInteger();
+
+        when.onEachSettled(input, (s, i) -> {
+            calls.incrementAndGet();
+            throw (RuntimeException) t;
+        }).then(done.onFulfilled, done.onRejected);
+
+        done.assertRejected();
+        assertSame(t, done.getCause());
+        assertEquals(1, calls.get());
+
+    }
+
+    @Test
+    public void testOnEachSettled_should_not_call_consumer_concurrently() throws Exception {
+
+        int rounds = 50;
+        int count = 200;
+        CountDownLatch finished = new CountDownLatch(rounds);
+        AtomicInteger errors = new AtomicInteger();
+
+        settleInParallel(rounds, count, (w, deferreds) -> {
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            AtomicInteger active = new AtomicInteger();
+            BitSet seen = new BitSet(count);
+
+            w.onEachSettled(input, (s, i) -> {
+                if (active.incrementAndGet() != 1 || seen.get(i) || s.getValue() != i) {
+                    errors.incrementAndGet();
+                }
+                seen.set(i);
+                active.decrementAndGet();
+            }).then(x -> {
+                if (seen.cardinality() != count) {
+                    errors.incrementAndGet();
+                }
+                finished.countDown();
+                return null;
+            });
+        }, Deferred::resolve, finished);
+
+        assertEquals(0, errors.get());
+
+    }
+
+}
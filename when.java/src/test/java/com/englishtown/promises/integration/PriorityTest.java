@@ -0,0 +1,113 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Priority;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.Scheduler;
+import com.englishtown.promises.internal.TrustedPromise;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for {@link com.englishtown.promises.Priority} lanes
+ */
+public class PriorityTest extends AbstractIntegrationTest {
+
+    private final Queue<Runnable> drains = new LinkedList<>();
+    private final List<String> order = new ArrayList<>();
+
+    @Override
+    public void setUp() throws Exception {
+        // Hold drains until run() so tasks from different lanes queue up together
+        executor = drains::add;
+        super.setUp();
+    }
+
+    private void run() {
+        Runnable drain = drains.poll();
+        while (drain != null) {
+            drain.run();
+            drain = drains.poll();
+        }
+    }
+
+    private <T> Promise<T> record(Promise<T> p, String name) {
+        return p.then(x -> {
+            order.add(name);
+            return when.resolve(x);
+        });
+    }
+
+    @Test
+    public void testPriority_should_run_higher_lanes_first() throws Exception {
+
+        Promise<Integer> p = when.resolve(1);
+
+        record(p.withPriority(Priority.BACKGROUND), "background");
+        record(p, "normal");
+        record(p.withPriority(Priority.HIGH), "high");
+
+        run();
+
+        assertEquals("high", order.get(0));
+        assertEquals("normal", order.get(1));
+        assertEquals("background", order.get(2));
+
+    }
+
+    @Test
+    public void testPriority_should_be_inherited_by_chained_promises() throws Exception {
+
+        Deferred<Integer> d = when.defer();
+
+        Promise<Integer> high = d.getPromise().withPriority(Priority.HIGH).then(x -> when.resolve(x + 1));
+        assertEquals(Priority.HIGH, ((TrustedPromise<Integer>) high).getPriority());
+
+        record(d.getPromise(), "normal");
+        record(high, "high");
+
+        d.resolve(1);
+        run();
+
+        assertEquals("high", order.get(0));
+        assertEquals("normal", order.get(1));
+
+    }
+
+    @Test
+    public void testPriority_should_not_starve_lower_lanes() throws Exception {
+
+        Scheduler scheduler = helper.getScheduler();
+        int highTasks = 200;
+
+        scheduler.enqueue(() -> order.add("background"), Priority.BACKGROUND);
+        scheduler.enqueue(() -> order.add("normal"), Priority.NORMAL);
+        for (int i = 0; i < highTasks; i++) {
+            scheduler.enqueue(() -> order.add("high"), Priority.HIGH);
+        }
+
+        run();
+
+        assertEquals(highTasks + 2, order.size());
+        assertTrue(order.indexOf("normal") < 8);
+        assertTrue(order.indexOf("background") < 64);
+
+    }
+
+    @Test
+    public void testWithPriority_should_return_same_promise_for_same_priority() throws Exception {
+
+        Promise<Integer> p = when.resolve(1);
+        assertSame(p, p.withPriority(Priority.NORMAL));
+
+    }
+
+}
@@ -3,9 +3,11 @@ package com.englishtown.promises.integration;
 import com.englishtown.promises.Deferred;
 import com.englishtown.promises.Done;
 import com.englishtown.promises.Fail;
+import com.englishtown.promises.HandlerState;
 import com.englishtown.promises.Promise;
 import org.junit.Test;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -108,6 +110,25 @@ public class RaceTest extends AbstractIntegrationTest {
         done.assertFulfilled();
     }
 
+    private WeakReference<Sentinel> raceAgainst(Promise<Sentinel> loser) {
+        Sentinel winner = new Sentinel();
+        Done<Sentinel> done = new Done<>();
+        when.race(Arrays.asList(loser, when.resolve(winner))).then(done.onFulfilled, done.onRejected);
+        done.assertFulfilled();
+        return new WeakReference<>(winner);
+    }
+
+    @Test
+    public void testRace_should_not_be_held_by_loser_that_never_settles() throws Exception {
+
+        Deferred<Sentinel> loser = when.defer();
+        // Another consumer keeps the loser from being cancelled
+        loser.getPromise().done(x -> null, t -> null);
+
+        assertCollected(raceAgainst(loser.getPromise()));
+        assertEquals(HandlerState.PENDING, loser.getPromise().inspect().getState());
+    }
+
     @Test
     public void testRace_should_reject_when_winner_rejects() throws Exception {
 
@@ -4,6 +4,11 @@ import com.englishtown.promises.Deferred;
 import com.englishtown.promises.Done;
 import com.englishtown.promises.Fail;
 import com.englishtown.promises.Promise;
+import com.englishtown.promises.Scheduler;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.promises.impl.DefaultScheduler;
+import com.englishtown.promises.impl.TrampolineExecutor;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -174,4 +179,156 @@ public class ReduceTest extends AbstractIntegrationTest {
         done.assertFulfilled();
     }
 
+    @Test
+    public void testReduce_should_not_overflow_stack_for_long_chains() throws Exception {
+
+        int count = 1_000_000;
+        List<Promise<Integer>> input = new ArrayList<>(count);
+        Promise<Integer> one = when.resolve(1);
+        for (int i = 0; i < count; i++) {
+            input.add(one);
+        }
+
+        when.reduce(input, this::plus, when.resolve(0))
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(count, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testReduce_should_not_overflow_stack_for_long_chains_with_budgeted_drains() throws Exception {
+
+        // A drain that runs out of budget reschedules itself, which must not nest on the stack
+        Scheduler scheduler = new DefaultScheduler(TrampolineExecutor::new, 1, 0);
+        When when = WhenFactory.createFor(scheduler);
+
+        int count = 1_000_000;
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> one = when.resolve(1);
+        List<Promise<Integer>> input = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            input.add(one);
+        }
+
+        when.reduce(input, (sum, x) -> when.resolve(sum + x), d.getPromise())
+                .then(done.onFulfilled, done.onRejected);
+
+        d.resolve(0);
+
+        done.assertFulfilled();
+        assertEquals(count, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testReduceAssociative_should_reduce_in_input_order() throws Exception {
+
+        List<Deferred<String>> deferreds = new ArrayList<>();
+        List<Promise<String>> input = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Deferred<String> d = when.defer();
+            deferreds.add(d);
+            input.add(d.getPromise());
+        }
+
+        when.reduceAssociative(input, this::concat)
+                .<Integer>then(result -> {
+                    assertEquals("0123456", result);
+                    return null;
+                })
+                .then(done.onFulfilled, done.onRejected);
+
+        for (int i = 6; i >= 0; i--) {
+            deferreds.get(i).resolve(String.valueOf(i));
+        }
+
+        done.assertFulfilled();
+    }
+
+    @Test
+    public void testReduceAssociative_should_allow_sparse_array_input() throws Exception {
+
+        List<Promise<Integer>> input = Arrays.asList(null, null, resolved(1), null, resolved(1), resolved(1));
+
+        when.reduceAssociative(input, this::plus)
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+        assertEquals(3, done.getValue().intValue());
+    }
+
+    @Test
+    public void testReduceAssociative_should_reject_when_input_contains_rejection() throws Exception {
+
+        Throwable t = new RuntimeException();
+        Deferred<Integer> d = when.defer();
+        List<Promise<Integer>> input = Arrays.asList(d.getPromise(), resolved(1), rejected(t), resolved(1));
+
+        // Rejects without waiting for the pending input on the other side of the tree
+        when.reduceAssociative(input, this::plus)
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertRejected();
+        assertEquals(t, done.getCause());
+    }
+
+    @Test
+    public void testReduceAssociative_should_reject_when_input_is_empty() throws Exception {
+
+        when.reduceAssociative(new ArrayList<Promise<Integer>>(), this::plus)
+                .then(done.onFulfilled, done.onRejected);
+
+        done.assertRejected();
+        assertNotNull(done.getCause());
+    }
+
+    @Test
+    public void testReduceAssociative_should_leave_log_n_steps_after_last_input_settles() throws Exception {
+
+        // Inputs settle last to first, so a left to right reduce can't start until the very
+        // last input settles, while the tree combines everything except the first input's path
+        int count = 1024;
+        int[] linearSteps = new int[1];
+        int[] treeSteps = new int[1];
+
+        List<Deferred<Integer>> deferreds = new ArrayList<>(count);
+        List<Promise<Integer>> input = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Deferred<Integer> d = when.defer();
+            deferreds.add(d);
+            input.add(d.getPromise());
+        }
+
+        Done<Integer> linear = new Done<>();
+        Done<Integer> tree = new Done<>();
+
+        when.reduce(input, (sum, x) -> {
+            linearSteps[0]++;
+            return plus(sum, x);
+        }).then(linear.onFulfilled, linear.onRejected);
+
+        when.reduceAssociative(input, (sum, x) -> {
+            treeSteps[0]++;
+            return plus(sum, x);
+        }).then(tree.onFulfilled, tree.onRejected);
+
+        for (int i = count - 1; i > 0; i--) {
+            deferreds.get(i).resolve(1);
+        }
+        int linearBefore = linearSteps[0];
+        int treeBefore = treeSteps[0];
+
+        deferreds.get(0).resolve(1);
+
+        linear.assertFulfilled();
+        tree.assertFulfilled();
+        assertEquals(count, linear.getValue().intValue());
+        assertEquals(count, tree.getValue().intValue());
+
+        assertEquals(count - 1, linearSteps[0] - linearBefore);
+        assertEquals(10, treeSteps[0] - treeBefore);
+    }
+
 }
@@ -3,6 +3,8 @@ package com.englishtown.promises.integration;
 import com.englishtown.promises.*;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
@@ -137,4 +139,54 @@ public class ResolveTest extends AbstractIntegrationTest {
         done.assertFulfilled();
     }
 
+    @Test(timeout = 30_000)
+    public void testResolve_should_compress_long_resolution_chains() throws Exception {
+
+        // d[0] is resolved with d[1], which is resolved with d[2], and so on.  Without path
+        // compression inspecting every promise in the chain is quadratic in its length.
+        int length = 200_000;
+        List<Deferred<Integer>> deferreds = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            deferreds.add(when.defer());
+        }
+        for (int i = 0; i < length - 1; i++) {
+            deferreds.get(i).resolve(deferreds.get(i + 1).getPromise());
+        }
+        deferreds.get(length - 1).resolve(123);
+
+        for (Deferred<Integer> d : deferreds) {
+            State<Integer> state = d.getPromise().inspect();
+            assertEquals(HandlerState.FULFILLED, state.getState());
+            assertEquals(123, state.getValue().intValue());
+        }
+
+        deferreds.get(0).getPromise().then(done.onFulfilled, done.onRejected);
+        done.assertFulfilled();
+        assertEquals(123, done.getValue().intValue());
+
+    }
+
+    @Test
+    public void testResolve_should_follow_pending_promise_and_ignore_later_resolves() throws Exception {
+
+        Deferred<Integer> d1 = when.defer();
+        Deferred<Integer> d2 = when.defer();
+        Done<Integer> done2 = new Done<>();
+
+        d2.getPromise().then(done2.onFulfilled, done2.onRejected);
+        d1.getPromise().then(done.onFulfilled, done.onRejected);
+
+        d1.resolve(d2.getPromise());
+        d1.resolve(1);
+        assertEquals(HandlerState.PENDING, d1.getPromise().inspect().getState());
+
+        d2.resolve(2);
+
+        done.assertFulfilled();
+        done2.assertFulfilled();
+        assertEquals(2, done.getValue().intValue());
+        assertEquals(2, done2.getValue().intValue());
+
+    }
+
 }
@@ -0,0 +1,171 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Scheduler;
+import com.englishtown.promises.impl.DefaultScheduler;
+import com.englishtown.promises.impl.SyncExecutor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Stress tests for {@link com.englishtown.promises.impl.DefaultScheduler}
+ */
+public class SchedulerTest {
+
+    private static final int PRODUCERS = 8;
+    private static final int TASKS_PER_PRODUCER = 50_000;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(PRODUCERS);
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testEnqueue_should_run_every_task_with_a_single_drainer() throws Exception {
+
+        Scheduler scheduler = new DefaultScheduler(() -> pool);
+        int total = PRODUCERS * TASKS_PER_PRODUCER;
+
+        CountDownLatch latch = new CountDownLatch(total);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        Runnable task = () -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            active.decrementAndGet();
+            latch.countDown();
+        };
+
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int i = 0; i < PRODUCERS; i++) {
+            producers[i] = new Thread(() -> {
+                for (int j = 0; j < TASKS_PER_PRODUCER; j++) {
+                    if ((j & 1) == 0) {
+                        scheduler.enqueue(task);
+                    } else {
+                        scheduler.afterQueue(task);
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        if (!latch.await(30, TimeUnit.SECONDS)) {
+            fail("Lost wakeup: " + latch.getCount() + " tasks never ran");
+        }
+        assertEquals(1, maxActive.get());
+
+    }
+
+    @Test
+    public void testEnqueue_should_not_strand_tasks_after_a_task_throws() throws Exception {
+
+        Scheduler scheduler = new DefaultScheduler(SyncExecutor::new);
+        AtomicInteger ran = new AtomicInteger();
+
+        try {
+            scheduler.enqueue(() -> {
+                scheduler.enqueue(ran::incrementAndGet);
+                throw new RuntimeException("boom");
+            });
+            fail();
+        } catch (RuntimeException e) {
+            assertEquals("boom", e.getMessage());
+        }
+
+        assertEquals(1, ran.get());
+
+        scheduler.enqueue(ran::incrementAndGet);
+        assertEquals(2, ran.get());
+
+    }
+
+    @Test
+    public void testEnqueue_should_run_tasks_enqueued_by_after_queue_tasks() throws Exception {
+
+        Scheduler scheduler = new DefaultScheduler(SyncExecutor::new);
+        AtomicInteger ran = new AtomicInteger();
+
+        scheduler.afterQueue(() -> scheduler.enqueue(ran::incrementAndGet));
+        assertEquals(1, ran.get());
+
+    }
+
+    @Test
+    public void testDrain_should_yield_when_task_budget_is_exhausted() throws Exception {
+
+        AtomicInteger drains = new AtomicInteger();
+        DefaultScheduler scheduler = new DefaultScheduler(() -> command -> {
+            drains.incrementAndGet();
+            command.run();
+        }, 10, 0);
+        AtomicInteger ran = new AtomicInteger();
+
+        scheduler.enqueue(() -> {
+            for (int i = 0; i < 95; i++) {
+                scheduler.enqueue(ran::incrementAndGet);
+            }
+        });
+
+        assertEquals(95, ran.get());
+        assertEquals(10, drains.get());
+        assertEquals(9, scheduler.getBudgetExhaustedCount());
+
+    }
+
+    @Test
+    public void testDrain_should_let_other_schedulers_run_when_budget_is_exhausted() throws Exception {
+
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            DefaultScheduler busy = new DefaultScheduler(() -> single, 100, TimeUnit.MILLISECONDS.toNanos(50));
+            DefaultScheduler other = new DefaultScheduler(() -> single);
+
+            int cascade = 100_000;
+            AtomicInteger remaining = new AtomicInteger(cascade);
+            AtomicInteger remainingWhenOtherRan = new AtomicInteger(-1);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(2);
+
+            Runnable[] step = new Runnable[1];
+            step[0] = () -> {
+                started.countDown();
+                if (remaining.decrementAndGet() > 0) {
+                    busy.enqueue(step[0]);
+                } else {
+                    finished.countDown();
+                }
+            };
+            busy.enqueue(step[0]);
+
+            started.await();
+            other.enqueue(() -> {
+                remainingWhenOtherRan.set(remaining.get());
+                finished.countDown();
+            });
+
+            assertTrue(finished.await(30, TimeUnit.SECONDS));
+            assertTrue(remainingWhenOtherRan.get() > 0);
+            assertTrue(busy.getBudgetExhaustedCount() > 0);
+
+        } finally {
+            single.shutdownNow();
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.promises.impl.KeyedScheduler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for {@link com.englishtown.promises.When#serialOn(Object)}
+ */
+public class SerialOnTest {
+
+    private static final int KEYS = 8;
+    private static final int STEPS = 2_000;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(KEYS);
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testSerialOn_should_run_continuations_for_a_key_in_order() throws Exception {
+
+        When when = WhenFactory.createFor(new KeyedScheduler(() -> pool, 4));
+
+        List<AtomicInteger> next = new ArrayList<>();
+        List<AtomicInteger> active = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(KEYS * STEPS);
+
+        for (int k = 0; k < KEYS; k++) {
+            next.add(new AtomicInteger());
+            active.add(new AtomicInteger());
+        }
+
+        for (int i = 0; i < STEPS; i++) {
+            for (int k = 0; k < KEYS; k++) {
+                int key = k;
+                int step = i;
+                When serial = when.serialOn("account-" + key);
+
+                serial.resolve(step).then(x -> {
+                    if (active.get(key).incrementAndGet() != 1 || next.get(key).getAndIncrement() != x) {
+                        errors.incrementAndGet();
+                    }
+                    active.get(key).decrementAndGet();
+                    latch.countDown();
+                    return null;
+                });
+            }
+        }
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(0, errors.get());
+
+    }
+
+    @Test
+    public void testSerialOn_should_return_same_when_for_same_key() throws Exception {
+
+        When when = WhenFactory.createFor(new KeyedScheduler(() -> pool, 4));
+        assertSame(when.serialOn("a"), when.serialOn("a"));
+        assertNotSame(when, when.serialOn("a"));
+
+    }
+
+    @Test
+    public void testSerialOn_should_return_same_when_for_single_drainer_scheduler() throws Exception {
+
+        When when = WhenFactory.createSync();
+        assertSame(when, when.serialOn("a"));
+
+    }
+
+    @Test
+    public void testSerialOn_chained_promises() throws Exception {
+
+        When when = WhenFactory.createFor(new KeyedScheduler(() -> pool, 4)).serialOn(1);
+        Done<Integer> done = new Done<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Promise<Integer> p = when.resolve(0);
+        for (int i = 0; i < 10; i++) {
+            p = p.then(x -> when.resolve(x + 1));
+        }
+        p.then(done.onFulfilled, done.onRejected).ensure(latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        done.assertFulfilled();
+        assertEquals(10, done.getValue().intValue());
+
+    }
+
+}
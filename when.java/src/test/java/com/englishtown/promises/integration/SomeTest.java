@@ -1,6 +1,7 @@
 package com.englishtown.promises.integration;
 
 import com.englishtown.promises.BiFail;
+import com.englishtown.promises.Deferred;
 import com.englishtown.promises.Done;
 import com.englishtown.promises.Promise;
 import com.englishtown.promises.exceptions.RejectException;
@@ -8,7 +9,9 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
@@ -81,6 +84,21 @@ public class SomeTest extends AbstractIntegrationTest {
         done.assertFulfilled();
     }
 
+    @Test
+    public void testSome_should_resolve_modifiable_list() throws Exception {
+
+        List<Promise<Integer>> input = Arrays.asList(when.resolve(1), when.resolve(2), when.resolve(3));
+
+        when.some(input, 2).<Integer>then(
+                results -> {
+                    results.add(4);
+                    assertEquals(3, results.size());
+                    return null;
+                }).then(done.onFulfilled, done.onRejected);
+
+        done.assertFulfilled();
+    }
+
     @Test
     public void testSome_should_resolve_sparse_array_input() throws Exception {
 
@@ -130,4 +148,62 @@ public class SomeTest extends AbstractIntegrationTest {
         done.assertFulfilled();
     }
 
+    @Test
+    public void testSome_should_collect_n_distinct_values_from_many_threads() throws Exception {
+
+        int rounds = 100;
+        int count = 1_000;
+        int n = count / 2;
+        List<String> failures = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(rounds);
+
+        settleInParallel(rounds, count, (parallel, deferreds) -> {
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            parallel.some(input, n).then(results -> {
+                HashSet<Integer> distinct = new HashSet<>(results);
+                if (results.size() != n || distinct.size() != n || distinct.contains(null)) {
+                    synchronized (failures) {
+                        failures.add(results.size() + " results, " + distinct.size() + " distinct");
+                    }
+                }
+                latch.countDown();
+                return null;
+            });
+        }, Deferred::resolve, latch);
+
+        assertEquals(new ArrayList<String>(), failures);
+
+    }
+
+    @Test
+    public void testSome_should_collect_rejections_from_many_threads() throws Exception {
+
+        int rounds = 100;
+        int count = 1_000;
+        int n = count / 2;
+        List<String> failures = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(rounds);
+
+        settleInParallel(rounds, count, (parallel, deferreds) -> {
+            List<Promise<Integer>> input = new ArrayList<>();
+            deferreds.forEach(d -> input.add(d.getPromise()));
+
+            parallel.some(input, n).otherwise(t -> {
+                List<Throwable> errors = ((RejectException) t).getInnerExceptions();
+                if (errors.size() != count - n + 1 || errors.contains(null)) {
+                    synchronized (failures) {
+                        failures.add(errors.size() + " errors");
+                    }
+                }
+                latch.countDown();
+                return null;
+            });
+        }, (d, i) -> d.reject(new RuntimeException(String.valueOf(i))), latch);
+
+        assertEquals(new ArrayList<String>(), failures);
+
+    }
+
 }
@@ -0,0 +1,251 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.streams.ListSubscriber;
+import com.englishtown.promises.streams.PromisePublisher;
+import com.englishtown.promises.streams.PromiseSubscriber;
+import com.englishtown.promises.streams.Subscriber;
+import com.englishtown.promises.streams.Subscription;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration tests for the {@link com.englishtown.promises.streams} adapters
+ */
+public class StreamsTest extends AbstractIntegrationTest {
+
+    private List<Deferred<Integer>> defer(int count) {
+        List<Deferred<Integer>> deferreds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            deferreds.add(when.defer());
+        }
+        return deferreds;
+    }
+
+    private List<Promise<Integer>> promises(List<Deferred<Integer>> deferreds) {
+        List<Promise<Integer>> promises = new ArrayList<>();
+        deferreds.forEach(d -> promises.add(d.getPromise()));
+        return promises;
+    }
+
+    @Test
+    public void testPublisher_should_publish_values_in_sequence_order_to_list() throws Exception {
+
+        Done<List<Integer>> done = new Done<>();
+        List<Deferred<Integer>> deferreds = defer(10);
+
+        ListSubscriber<Integer> subscriber = new ListSubscriber<>(when, 3);
+        subscriber.getPromise().then(done.onFulfilled, done.onRejected);
+        new PromisePublisher<>(when, promises(deferreds), 10).subscribe(subscriber);
+
+        for (int i = 9; i >= 0; i--) {
+            deferreds.get(i).resolve(i);
+        }
+
+        done.assertFulfilled();
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), done.getValue());
+
+    }
+
+    @Test
+    public void testPublisher_should_only_send_requested_values_and_take_prefetch_from_source() throws Exception {
+
+        int[] taken = new int[1];
+        Iterator<Promise<Integer>> source = new Iterator<Promise<Integer>>() {
+            @Override
+            public boolean hasNext() {
+                return taken[0] < 100;
+            }
+
+            @Override
+            public Promise<Integer> next() {
+                return resolved(taken[0]++);
+            }
+        };
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new PromisePublisher<>(when, source, 4).subscribe(subscriber);
+
+        assertEquals(0, subscriber.items.size());
+        assertEquals(4, taken[0]);
+
+        subscriber.subscription.request(2);
+        assertEquals(Arrays.asList(0, 1), subscriber.items);
+        assertEquals(6, taken[0]);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertEquals(100, subscriber.items.size());
+        assertTrue(subscriber.completed);
+
+    }
+
+    @Test
+    public void testPublisher_should_send_first_rejection_as_error() throws Exception {
+
+        Throwable t = new RuntimeException();
+        List<Promise<Integer>> source = Arrays.asList(resolved(1), rejected(t), resolved(3));
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new PromisePublisher<>(when, source, 2).subscribe(subscriber);
+        subscriber.subscription.request(10);
+
+        assertEquals(Arrays.asList(1), subscriber.items);
+        assertSame(t, subscriber.error);
+        assertFalse(subscriber.completed);
+
+    }
+
+    @Test
+    public void testPublisher_should_fail_non_positive_request_and_second_subscriber() throws Exception {
+
+        PromisePublisher<Integer> publisher = new PromisePublisher<>(when, Arrays.asList(resolved(1)), 1);
+
+        RecordingSubscriber first = new RecordingSubscriber();
+        publisher.subscribe(first);
+        first.subscription.request(0);
+        assertTrue(first.error instanceof IllegalArgumentException);
+
+        RecordingSubscriber second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        assertNotNull(second.subscription);
+        assertTrue(second.error instanceof IllegalStateException);
+
+    }
+
+    @Test
+    public void testSubscriber_should_bound_pending_stages() throws Exception {
+
+        Done<Void> done = new Done<>();
+        List<Deferred<Integer>> stages = new ArrayList<>();
+        long[] requested = new long[1];
+        boolean[] cancelled = new boolean[1];
+
+        PromiseSubscriber<Integer> subscriber = new PromiseSubscriber<>(when, 4, x -> {
+            Deferred<Integer> d = when.defer();
+            stages.add(d);
+            return d.getPromise();
+        });
+        subscriber.getPromise().then(done.onFulfilled, done.onRejected);
+
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                requested[0] += n;
+            }
+
+            @Override
+            public void cancel() {
+                cancelled[0] = true;
+            }
+        });
+        assertEquals(4, requested[0]);
+
+        for (int i = 0; i < 4; i++) {
+            subscriber.onNext(i);
+        }
+
+        stages.get(0).resolve(0);
+        assertEquals(4, requested[0]);
+        stages.get(1).resolve(1);
+        assertEquals(6, requested[0]);
+
+        subscriber.onNext(4);
+        subscriber.onComplete();
+        assertFalse(done.fulfilled());
+
+        for (int i = 2; i < stages.size(); i++) {
+            stages.get(i).resolve(i);
+        }
+        done.assertFulfilled();
+        assertFalse(cancelled[0]);
+
+    }
+
+    @Test
+    public void testSubscriber_should_reject_and_cancel_when_stage_rejects() throws Exception {
+
+        Done<Void> done = new Done<>();
+        Throwable t = new RuntimeException();
+        boolean[] cancelled = new boolean[1];
+
+        PromiseSubscriber<Integer> subscriber = new PromiseSubscriber<>(when, 2, x -> x == 1 ? rejected(t) : resolved(x));
+        subscriber.getPromise().then(done.onFulfilled, done.onRejected);
+
+        RecordingSubscriber recorder = new RecordingSubscriber() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                        subscription.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        cancelled[0] = true;
+                        subscription.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        };
+
+        new PromisePublisher<>(when, Arrays.asList(resolved(0), resolved(1), resolved(2)), 2).subscribe(recorder);
+
+        done.assertRejected();
+        assertSame(t, done.getCause());
+        assertTrue(cancelled[0]);
+
+    }
+
+    private static class RecordingSubscriber implements Subscriber<Integer> {
+
+        private final List<Integer> items = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+    }
+
+}
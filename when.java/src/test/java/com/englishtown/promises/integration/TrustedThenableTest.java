@@ -0,0 +1,134 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.Thenable;
+import com.englishtown.promises.When;
+import com.englishtown.promises.impl.DefaultEnvironment;
+import com.englishtown.promises.impl.DefaultScheduler;
+import com.englishtown.promises.impl.DefaultWhen;
+import com.englishtown.promises.internal.ArrayHelper;
+import com.englishtown.promises.internal.PromiseHelper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Integration tests for trusted foreign thenables
+ */
+public class TrustedThenableTest extends AbstractIntegrationTest {
+
+    // Scheduler drains only run when the test runs them, so extra hops are visible
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private When trusting;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        executor = tasks::add;
+        super.setUp();
+
+        DefaultEnvironment environment = new DefaultEnvironment(new DefaultScheduler(() -> executor))
+                .addTrustedType(SettledThenable.class);
+        PromiseHelper trustingHelper = new PromiseHelper(environment, context, reporter);
+        trusting = new DefaultWhen(trustingHelper, new ArrayHelper(trustingHelper));
+    }
+
+    private int runTasks() {
+        int count = 0;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testResolve_should_assimilate_untrusted_thenable_in_a_task() throws Exception {
+
+        Promise<Integer> p = when.resolve(new SettledThenable<>(1));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        runTasks();
+        assertEquals(1, p.inspect().getValue().intValue());
+
+    }
+
+    @Test
+    public void testResolve_should_assimilate_trusted_thenable_directly() throws Exception {
+
+        Promise<Integer> p = trusting.resolve(new SettledThenable<>(1));
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(1, p.inspect().getValue().intValue());
+        assertEquals(0, runTasks());
+
+    }
+
+    @Test
+    public void testResolve_should_reject_when_trusted_thenable_throws() throws Exception {
+
+        RuntimeException t = new RuntimeException();
+        Promise<Integer> p = trusting.resolve(new SettledThenable<Integer>(null) {
+            @Override
+            public <U> Thenable<U> then(Function<Integer, ? extends Thenable<U>> onFulfilled, Function<Throwable, ? extends Thenable<U>> onRejected) {
+                throw t;
+            }
+        });
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertSame(t, p.inspect().getReason());
+
+    }
+
+    @Test
+    public void testAll_should_join_trusted_thenables_directly() throws Exception {
+
+        List<Thenable<Integer>> input = Arrays.asList(new SettledThenable<>(1), new SettledThenable<>(2));
+        Promise<List<Integer>> p = trusting.all(input);
+
+        runTasks();
+        assertEquals(Arrays.asList(1, 2), p.inspect().getValue());
+
+    }
+
+    @Test
+    public void testResolve_should_join_promise_of_another_when_directly() throws Exception {
+
+        Promise<Integer> other = trusting.resolve(1);
+        Promise<Integer> p = when.resolve(other);
+
+        assertSame(other, p);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+
+    }
+
+    /**
+     * Foreign thenable that calls back synchronously
+     */
+    private static class SettledThenable<T> implements Thenable<T> {
+
+        private final T value;
+
+        private SettledThenable(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public <U> Thenable<U> then(Function<T, ? extends Thenable<U>> onFulfilled, Function<Throwable, ? extends Thenable<U>> onRejected) {
+            return onFulfilled.apply(value);
+        }
+
+    }
+
+}
@@ -1,11 +1,14 @@
 package com.englishtown.promises.integration;
 
 import com.englishtown.promises.*;
+import com.englishtown.promises.impl.AsyncExecutor;
 import org.junit.Test;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Integration tests for {@link com.englishtown.promises.WhenFactory}
@@ -58,9 +61,8 @@ public class WhenFactoryTest {
             return when.resolve(String.valueOf(value2));
         }).then(value3 -> {
             assertEquals("20", value3);
-            latch.countDown();
             return null;
-        }).then(done.onFulfilled, done.onRejected);
+        }).then(done.onFulfilled, done.onRejected).ensure(latch::countDown);
 
         // Use the resolver to trigger the callback registered above.
         // The callback value will be 10
@@ -71,4 +73,60 @@ public class WhenFactoryTest {
 
     }
 
+    @Test
+    public void testCreateAsync_with_caller_owned_executor() throws Exception {
+
+        AsyncExecutor executor = new AsyncExecutor();
+        When when = WhenFactory.createAsync(executor);
+        Done<Integer> done = new Done<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Deferred<Integer> d = when.defer();
+        d.getPromise()
+                .then(value -> when.resolve(2 * value))
+                .then(done.onFulfilled, done.onRejected)
+                .ensure(latch::countDown);
+
+        d.resolve(10);
+        latch.await();
+        done.assertFulfilled();
+        assertEquals(20, done.getValue().intValue());
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    }
+
+    @Test
+    public void testCreateVirtual() throws Exception {
+
+        When when = WhenFactory.createVirtual();
+        Done<String> done = new Done<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Deferred<Integer> d = when.defer();
+        Promise<Integer> p = d.getPromise();
+
+        p.then(value -> {
+            // Blocking in a callback must not stall the chain
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return when.resolve(2 * value);
+        }).then(value2 -> {
+            assertEquals(20, value2.intValue());
+            return when.resolve(String.valueOf(value2));
+        }).then(done.onFulfilled, done.onRejected)
+                .ensure(latch::countDown);
+
+        d.resolve(10);
+
+        latch.await();
+        done.assertFulfilled();
+        assertEquals("20", done.getValue());
+
+    }
+
 }
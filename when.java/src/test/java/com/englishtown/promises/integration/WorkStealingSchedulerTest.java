@@ -0,0 +1,115 @@
+package com.englishtown.promises.integration;
+
+import com.englishtown.promises.Done;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.promises.impl.WorkStealingScheduler;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Stress tests for {@link com.englishtown.promises.impl.WorkStealingScheduler}
+ */
+public class WorkStealingSchedulerTest {
+
+    private static final int WORKERS = 4;
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+    private final WorkStealingScheduler scheduler = new WorkStealingScheduler(() -> pool, WORKERS);
+
+    @After
+    public void tearDown() throws Exception {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testEnqueue_should_run_every_task_from_external_threads() throws Exception {
+
+        int producers = 8;
+        int tasksPerProducer = 50_000;
+        CountDownLatch latch = new CountDownLatch(producers * tasksPerProducer);
+
+        Thread[] threads = new Thread[producers];
+        for (int i = 0; i < producers; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < tasksPerProducer; j++) {
+                    if ((j & 1) == 0) {
+                        scheduler.enqueue(latch::countDown);
+                    } else {
+                        scheduler.afterQueue(latch::countDown);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!latch.await(30, TimeUnit.SECONDS)) {
+            fail("Lost wakeup: " + latch.getCount() + " tasks never ran");
+        }
+
+    }
+
+    @Test
+    public void testEnqueue_should_steal_local_backlog() throws Exception {
+
+        int tasks = 1_000;
+        CountDownLatch latch = new CountDownLatch(tasks);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+        // Fan out from a single worker, idle workers should steal part of the backlog
+        scheduler.enqueue(() -> {
+            for (int i = 0; i < tasks; i++) {
+                scheduler.enqueue(() -> {
+                    threads.add(Thread.currentThread());
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    latch.countDown();
+                });
+            }
+        });
+
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertTrue(threads.size() > 1);
+
+    }
+
+    @Test
+    public void testWhenFactory_createFor_scheduler() throws Exception {
+
+        When when = WhenFactory.createFor(scheduler);
+        Done<Integer> done = new Done<>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Promise<Integer> p = when.resolve(0);
+        for (int i = 0; i < 100; i++) {
+            p = p.then(x -> when.resolve(x + 2));
+        }
+
+        p.then(done.onFulfilled, done.onRejected)
+                .ensure(latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        done.assertFulfilled();
+        assertEquals(200, done.getValue().intValue());
+
+    }
+
+}